@@ -0,0 +1,92 @@
+package io.github.andyssder.ffind.cache;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiReference;
+import io.github.andyssder.ffind.common.ReferenceType;
+import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
+
+/**
+ * compact form of a cached usage: file and ranges instead of psi, so cache doesn't keep psi trees alive
+ */
+public final class CachedUsage {
+
+    private final VirtualFile file;
+
+    private final TextRange elementRange;
+
+    private final Class<? extends PsiElement> elementClass;
+
+    private final TextRange rangeInElement;
+
+    private final ReferenceType type;
+
+    private CachedUsage(VirtualFile file, TextRange elementRange, Class<? extends PsiElement> elementClass,
+                        TextRange rangeInElement, ReferenceType type) {
+        this.file = file;
+        this.elementRange = elementRange;
+        this.elementClass = elementClass;
+        this.rangeInElement = rangeInElement;
+        this.type = type;
+    }
+
+    /**
+     * must be called in read action
+     * @return compact form of usage or null if usage is invalid
+     */
+    public static CachedUsage of(CopyUsageInfo usageInfo) {
+        PsiElement element = usageInfo.getElement();
+        VirtualFile file = usageInfo.getVirtualFile();
+        TextRange rangeInElement = usageInfo.getRangeInElement();
+        if (element == null || file == null || rangeInElement == null) {
+            return null;
+        }
+        return new CachedUsage(file, element.getTextRange(), element.getClass(), rangeInElement, usageInfo.getType());
+    }
+
+    /**
+     * compact form of a usage which is cached but not delivered, without building its usage info.
+     * must be called in read action
+     * @return compact form of usage or null if reference is invalid
+     */
+    public static CachedUsage of(PsiReference reference, ReferenceType type) {
+        PsiElement element = reference.getElement();
+        PsiFile psiFile = element.getContainingFile();
+        VirtualFile file = psiFile != null ? psiFile.getVirtualFile() : null;
+        if (file == null || !element.isValid()) {
+            return null;
+        }
+        return new CachedUsage(file, element.getTextRange(), element.getClass(), reference.getRangeInElement(), type);
+    }
+
+    VirtualFile getFile() {
+        return file;
+    }
+
+    /**
+     * rebuild usage info, must be called in read action
+     * @return usage info or null if element can't be found anymore
+     */
+    CopyUsageInfo restore(Project project) {
+        if (!file.isValid()) {
+            return null;
+        }
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null) {
+            return null;
+        }
+        PsiElement element = psiFile.findElementAt(elementRange.getStartOffset());
+        while (element != null && !(element instanceof PsiFile)
+                && element.getTextRange().getStartOffset() == elementRange.getStartOffset()) {
+            if (element.getClass() == elementClass && elementRange.equals(element.getTextRange())) {
+                return new CopyUsageInfo(element, rangeInElement, type);
+            }
+            element = element.getParent();
+        }
+        return null;
+    }
+}
@@ -1,82 +1,599 @@
 package io.github.andyssder.ffind.cache;
 
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import io.github.andyssder.ffind.common.ReadActionUtil;
+import io.github.andyssder.ffind.index.CopyCallChangeTracker;
+import io.github.andyssder.ffind.index.CopyCallSiteTable;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.MethodConfig;
 import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
+import io.github.andyssder.ffind.model.state.GeneralSetting;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class FindResultCache {
+/**
+ * find result cache of a project, released when the project is closed.
+ * bounded by entry count and total usage count, the least recently used entry is evicted first.
+ * results are kept as files and ranges and rebuilt when they are delivered.
+ * when method configs change, only results which used removed configs or may be found by added configs are dropped.
+ * edits inside method bodies keep results, usages of edited files are searched again by the caller
+ */
+public class FindResultCache implements Disposable {
 
-    private static final FindResultCache INSTANCE = new FindResultCache();
+    private final Project project;
 
-    // cache map
-    private final Map<String, SoftReference<CachedResult>> cache = new ConcurrentHashMap<>();
+    // cache map in access order, guarded by itself
+    private final LinkedHashMap<String, CacheReference> cache = new LinkedHashMap<>(16, 0.75f, true);
 
-    private FindResultCache() {
+    // references cleared by gc
+    private final ReferenceQueue<CachedResult> clearedReferences = new ReferenceQueue<>();
 
+    // total usage count of entries in cache, guarded by cache
+    private long usageCount;
+
+    // modification stamp when outdated entries were removed last time, guarded by cache
+    private Stamp sweptStamp;
+
+    // changes whenever method configs change, results of searches started before are not saved, guarded by cache
+    private long configGeneration;
+
+    // searches running now by key, callers of a running key wait for it instead of searching again
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlightSearches = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public FindResultCache(Project project) {
+        this.project = project;
     }
 
-    public static FindResultCache getInstance() {
-        return INSTANCE;
+    public static FindResultCache getInstance(Project project) {
+        return project.getService(FindResultCache.class);
     }
 
     /**
      * Returns cached find result  for the specified field.
      *
      * @param key cache key
-     * @return cached result if exist or empty.
+     * @return cached result if exist and nothing changed since it was saved or empty.
      */
     public Optional<List<CopyUsageInfo>> getCachedResul(String key) {
-        SoftReference<CachedResult> value = cache.get(key);
-        if (Objects.nonNull(value)) {
-            CachedResult result = value.get();
-            if (Objects.nonNull(result) && Objects.nonNull(result.getValue())) {
-                return Optional.of(result.getValue());
-            }
+        PartialResult result = findResult(key);
+        if (Objects.nonNull(result) && result.getChangedFiles().isEmpty()) {
+            hitCount.incrementAndGet();
+            return Optional.of(result.getUsageInfos());
+        }
+        missCount.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Returns cached find result which may miss usages of files edited inside method bodies since it was saved.
+     *
+     * @param key cache key
+     * @return cached result if exist and structure didn't change since it was saved or empty.
+     */
+    public Optional<PartialResult> getPartialResult(String key) {
+        PartialResult result = findResult(key);
+        if (Objects.nonNull(result)) {
+            hitCount.incrementAndGet();
+            return Optional.of(result);
         }
+        missCount.incrementAndGet();
         return Optional.empty();
     }
 
+    /**
+     * @return result without usages of edited files, or null if not cached or outdated
+     */
+    private PartialResult findResult(String key) {
+        CacheReference reference;
+        CachedResult result;
+        synchronized (cache) {
+            removeClearedEntries();
+            reference = cache.get(key);
+            result = reference != null ? reference.get() : null;
+            if (Objects.nonNull(result) && !result.getUnverifiedConfigs().isEmpty()) {
+                // kept until calls of added configs are searched
+                return null;
+            }
+        }
+        if (Objects.isNull(reference)) {
+            return null;
+        }
+        // rebuild outside the lock in a read action which yields to writes, it touches psi of every usage
+        PartialResult partialResult = Objects.nonNull(result) ? ReadActionUtil.compute(() -> restore(result)) : null;
+        if (Objects.isNull(partialResult)) {
+            synchronized (cache) {
+                // the key may have been saved again meanwhile
+                if (cache.remove(key, reference)) {
+                    usageCount -= reference.getWeight();
+                }
+            }
+        }
+        return partialResult;
+    }
+
+    /**
+     * must be called in read action
+     * @return result without usages of edited files, or null if outdated or any usage can't be rebuilt
+     */
+    private PartialResult restore(CachedResult result) {
+        if (!result.isUpToDate(project)) {
+            return null;
+        }
+        Set<VirtualFile> changedFiles = CopyCallChangeTracker.getInstance(project).getChangedFiles(result.getStamp().editCount);
+        List<CopyUsageInfo> usageInfos = result.restore(project, changedFiles);
+        return Objects.nonNull(usageInfos)
+                ? new PartialResult(usageInfos, changedFiles, result.getClassNames(), result.getMethodConfigs()) : null;
+    }
+
+    /**
+     * save find result in cache, should be called in the same read action which computes the result
+     * @param key cache key
+     * @param result find result
+     */
+    public void updateCacheResult(String key, List<CopyUsageInfo> result) {
+        updateCacheResult(key, result, ReadActionUtil.compute(() -> Stamp.current(project)));
+    }
 
     /**
-     * save find result in cache
+     * save find result computed in several read actions in cache,
+     * result is outdated at once if anything changed since the stamp was taken
      * @param key cache key
      * @param result find result
-     * @param expireTime expire time in milliseconds
+     * @param stamp stamp taken before the search, see {@link Stamp#current(Project)}
+     */
+    public void updateCacheResult(String key, List<CopyUsageInfo> result, Stamp stamp) {
+        updateCacheResult(key, result, stamp, null, null);
+    }
+
+    /**
+     * save find result with what it depends on, so it survives changes of unrelated method configs
+     * @param stamp stamp taken before the search, see {@link Stamp#current(Project)}
+     * @param classNames classes whose copy calls were searched, null if unknown
+     * @param methodConfigs configs of copy calls which use the classes, null if unknown
      */
-    public void updateCacheResult(String key, List<CopyUsageInfo> result, Long expireTime) {
-        cache.put(key, new SoftReference<>(new CachedResult(result, expireTime)));
+    public void updateCacheResult(String key, List<CopyUsageInfo> result, Stamp stamp,
+                                  Set<String> classNames, Set<MethodConfig> methodConfigs) {
+        List<CachedUsage> usages = ReadActionUtil.compute(() -> toCachedUsages(result));
+        updateCachedUsages(key, usages, stamp, classNames, methodConfigs);
+    }
+
+    /**
+     * save find result already in compact form, for results which are cached without being delivered
+     * @param stamp stamp taken before the search, see {@link Stamp#current(Project)}
+     * @param classNames classes whose copy calls were searched, null if unknown
+     * @param methodConfigs configs of copy calls which use the classes, null if unknown
+     */
+    public void updateCachedUsages(String key, List<CachedUsage> usages, Stamp stamp,
+                                   Set<String> classNames, Set<MethodConfig> methodConfigs) {
+        CachedResult cachedResult = new CachedResult(usages, stamp, classNames, methodConfigs);
+        Stamp currentStamp = ReadActionUtil.compute(() -> Stamp.current(project));
+        GeneralConfig generalConfig = GeneralSetting.getInstance().getGeneralConfig();
+        synchronized (cache) {
+            if (stamp.configGeneration != configGeneration) {
+                // searched with configs which have changed
+                return;
+            }
+            removeClearedEntries();
+            removeOutdatedEntries(currentStamp);
+            removeEntry(key);
+            CacheReference reference = new CacheReference(key, cachedResult, clearedReferences);
+            cache.put(key, reference);
+            usageCount += reference.getWeight();
+            evict(generalConfig.getMaxCacheEntries(), generalConfig.getMaxCacheUsages());
+        }
+    }
+
+    /**
+     * drop results which used removed configs, results which may be found by added configs
+     * are not delivered until calls of added configs are searched in background
+     */
+    public void onMethodConfigsChanged(List<MethodConfig> removedConfigs, List<MethodConfig> addedConfigs) {
+        synchronized (cache) {
+            configGeneration++;
+            removeClearedEntries();
+            Iterator<CacheReference> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                CacheReference reference = iterator.next();
+                CachedResult result = reference.get();
+                if (Objects.isNull(result) || result.dependsOnAny(removedConfigs)) {
+                    iterator.remove();
+                    usageCount -= reference.getWeight();
+                } else {
+                    result.getUnverifiedConfigs().addAll(addedConfigs);
+                }
+            }
+        }
+        if (!addedConfigs.isEmpty()) {
+            ReadAction.nonBlocking(() -> CopyCallSiteTable.getInstance(project).getArgumentTypes(addedConfigs))
+                    .inSmartMode(project)
+                    .expireWith(this)
+                    .submit(AppExecutorUtil.getAppExecutorService())
+                    .onProcessed(argumentTypes -> onAddedConfigsSearched(addedConfigs, argumentTypes));
+        }
+    }
+
+    /**
+     * clear cache when it is disabled, evict entries when bounds become smaller
+     */
+    public void onGeneralConfigChanged(GeneralConfig generalConfig) {
+        if (Objects.isNull(generalConfig) || !Boolean.TRUE.equals(generalConfig.getCacheEnable())) {
+            clearCache();
+            return;
+        }
+        synchronized (cache) {
+            removeClearedEntries();
+            evict(generalConfig.getMaxCacheEntries(), generalConfig.getMaxCacheUsages());
+        }
+    }
+
+    /**
+     * drop results whose classes are used by calls of added configs, others are delivered again
+     * @param argumentTypes classes used by calls of added configs, null if the search failed
+     */
+    private void onAddedConfigsSearched(List<MethodConfig> addedConfigs, Set<String> argumentTypes) {
+        synchronized (cache) {
+            Iterator<CacheReference> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                CacheReference reference = iterator.next();
+                CachedResult result = reference.get();
+                if (Objects.isNull(result) || !result.getUnverifiedConfigs().containsAll(addedConfigs)) {
+                    continue;
+                }
+                if (Objects.isNull(argumentTypes) || result.usesAny(argumentTypes)) {
+                    iterator.remove();
+                    usageCount -= reference.getWeight();
+                } else {
+                    result.getUnverifiedConfigs().removeAll(addedConfigs);
+                }
+            }
+        }
+    }
+
+    /**
+     * register a search of given key unless one is running
+     * @param key key of the search, may cover several cache keys
+     * @return null if caller runs the search and must call {@link #finishSearch(String)} after,
+     * or future completed when the running search finishes
+     */
+    public CompletableFuture<Void> startSearch(String key) {
+        return inFlightSearches.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    /**
+     * wake callers waiting for the search, whether it completed or not
+     */
+    public void finishSearch(String key) {
+        CompletableFuture<Void> future = inFlightSearches.remove(key);
+        if (Objects.nonNull(future)) {
+            future.complete(null);
+        }
     }
 
     /**
      * clear all cache
      */
     public void clearCache() {
-        cache.clear();
+        synchronized (cache) {
+            cache.clear();
+            usageCount = 0;
+        }
+    }
+
+    /**
+     * @return number of entries in cache
+     */
+    public int getEntryCount() {
+        synchronized (cache) {
+            removeClearedEntries();
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return total number of usages in cache
+     */
+    public long getUsageCount() {
+        synchronized (cache) {
+            removeClearedEntries();
+            return usageCount;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public void dispose() {
+        clearCache();
+    }
+
+    /**
+     * compact form of usages, invalid usages are left out. must be called in read action
+     */
+    private static List<CachedUsage> toCachedUsages(List<CopyUsageInfo> usageInfos) {
+        List<CachedUsage> cachedUsages = new ArrayList<>(usageInfos.size());
+        for (CopyUsageInfo usageInfo : usageInfos) {
+            ProgressManager.checkCanceled();
+            CachedUsage cachedUsage = CachedUsage.of(usageInfo);
+            if (Objects.nonNull(cachedUsage)) {
+                cachedUsages.add(cachedUsage);
+            }
+        }
+        return cachedUsages;
+    }
+
+    private void removeEntry(String key) {
+        CacheReference reference = cache.remove(key);
+        if (Objects.nonNull(reference)) {
+            usageCount -= reference.getWeight();
+        }
+    }
+
+    /**
+     * remove entries whose value has been cleared by gc
+     */
+    private void removeClearedEntries() {
+        CacheReference reference;
+        while ((reference = (CacheReference) clearedReferences.poll()) != null) {
+            // the key may have been saved again with another reference
+            if (cache.remove(reference.getKey(), reference)) {
+                usageCount -= reference.getWeight();
+            }
+        }
+    }
+
+    /**
+     * remove entries which can't be used anymore, only when something changed since last time
+     */
+    private void removeOutdatedEntries(Stamp stamp) {
+        if (stamp.equals(sweptStamp)) {
+            return;
+        }
+        Iterator<CacheReference> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            CacheReference reference = iterator.next();
+            CachedResult result = reference.get();
+            if (Objects.isNull(result) || !result.getStamp().isSameModification(stamp)) {
+                iterator.remove();
+                usageCount -= reference.getWeight();
+            }
+        }
+        sweptStamp = stamp;
+    }
+
+    /**
+     * evict least recently used entries until cache is in bounds
+     */
+    private void evict(int maxEntries, int maxUsages) {
+        Iterator<CacheReference> iterator = cache.values().iterator();
+        while ((cache.size() > maxEntries || usageCount > maxUsages) && iterator.hasNext()) {
+            CacheReference reference = iterator.next();
+            iterator.remove();
+            usageCount -= reference.getWeight();
+        }
+    }
+
+    /**
+     * soft reference to cache value, keeps its key and weight for removal after cleared
+     */
+    private static class CacheReference extends SoftReference<CachedResult> {
+        private final String key;
+        private final int weight;
+
+        CacheReference(String key, CachedResult result, ReferenceQueue<CachedResult> queue) {
+            super(result, queue);
+            this.key = key;
+            this.weight = result.getUsages().size();
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        int getWeight() {
+            return weight;
+        }
     }
 
     /**
-     * cache value
+     * cached result with usages of files edited since it was saved left out, those files must be searched again
+     */
+    public static final class PartialResult {
+        private final List<CopyUsageInfo> usageInfos;
+        private final Set<VirtualFile> changedFiles;
+        private final Set<String> classNames;
+        private final Set<MethodConfig> methodConfigs;
+
+        PartialResult(List<CopyUsageInfo> usageInfos, Set<VirtualFile> changedFiles,
+                      Set<String> classNames, Set<MethodConfig> methodConfigs) {
+            this.usageInfos = usageInfos;
+            this.changedFiles = changedFiles;
+            this.classNames = classNames;
+            this.methodConfigs = methodConfigs;
+        }
+
+        /**
+         * @return usages in files not edited since the result was saved
+         */
+        public List<CopyUsageInfo> getUsageInfos() {
+            return usageInfos;
+        }
+
+        /**
+         * @return files edited inside method bodies since the result was saved
+         */
+        public Set<VirtualFile> getChangedFiles() {
+            return changedFiles;
+        }
+
+        /**
+         * @return classes whose copy calls were searched, null if unknown
+         */
+        public Set<String> getClassNames() {
+            return classNames;
+        }
+
+        /**
+         * @return configs of copy calls which use the classes, null if unknown
+         */
+        public Set<MethodConfig> getMethodConfigs() {
+            return methodConfigs;
+        }
+    }
+
+    /**
+     * cache value in compact form, valid until structure or project roots change
      */
     private static class CachedResult {
-        private final List<CopyUsageInfo> value;
-        private final long timestamp;
-        private final long expireTime;
+        private final List<CachedUsage> usages;
+        private final Stamp stamp;
+        private final Set<String> classNames;
+        private final Set<MethodConfig> methodConfigs;
+        // added configs whose calls are not searched yet, guarded by cache
+        private final List<MethodConfig> unverifiedConfigs = new ArrayList<>();
+
+        CachedResult(List<CachedUsage> usages, Stamp stamp, Set<String> classNames, Set<MethodConfig> methodConfigs) {
+            this.usages = usages;
+            this.stamp = stamp;
+            this.classNames = classNames;
+            this.methodConfigs = methodConfigs;
+        }
 
-        CachedResult(List<CopyUsageInfo> value, Long expireTime) {
-            this.value = Collections.unmodifiableList(value);
-            this.timestamp = System.currentTimeMillis();
-            this.expireTime = expireTime;
+        private boolean isUpToDate(Project project) {
+            return stamp.isSameModification(Stamp.current(project));
         }
 
-        private boolean isExpired() {
-            long elapsed = System.currentTimeMillis() - timestamp;
-            return elapsed > expireTime;
+        /**
+         * @return true if result may contain usages of given configs
+         */
+        boolean dependsOnAny(Collection<MethodConfig> configs) {
+            return Objects.isNull(methodConfigs) ? !configs.isEmpty() : configs.stream().anyMatch(methodConfigs::contains);
+        }
+
+        /**
+         * @return true if result may get usages from calls which use given classes
+         */
+        boolean usesAny(Set<String> argumentTypes) {
+            return Objects.isNull(classNames) || classNames.stream().anyMatch(argumentTypes::contains);
+        }
+
+        List<MethodConfig> getUnverifiedConfigs() {
+            return unverifiedConfigs;
+        }
+
+        Stamp getStamp() {
+            return stamp;
+        }
+
+        Set<String> getClassNames() {
+            return classNames;
+        }
+
+        Set<MethodConfig> getMethodConfigs() {
+            return methodConfigs;
+        }
+
+        List<CachedUsage> getUsages() {
+            return usages;
+        }
+
+        /**
+         * rebuild usage infos, must be called in read action
+         * @param changedFiles files whose usages are left out
+         * @return usage infos or null if any of them can't be rebuilt
+         */
+        List<CopyUsageInfo> restore(Project project, Set<VirtualFile> changedFiles) {
+            List<CopyUsageInfo> usageInfos = new ArrayList<>(usages.size());
+            for (CachedUsage usage : usages) {
+                ProgressManager.checkCanceled();
+                if (changedFiles.contains(usage.getFile())) {
+                    continue;
+                }
+                CopyUsageInfo usageInfo = usage.restore(project);
+                if (Objects.isNull(usageInfo)) {
+                    return null;
+                }
+                usageInfos.add(usageInfo);
+            }
+            return usageInfos;
+        }
+    }
+
+    private long getConfigGeneration() {
+        synchronized (cache) {
+            return configGeneration;
+        }
+    }
+
+    /**
+     * modification counts of structure and project roots, a result is valid while they don't change.
+     * files edited inside method bodies after the edit count are searched again when the result is used.
+     * a result is saved only if method configs didn't change since its stamp was taken
+     */
+    public static final class Stamp {
+        private final long structureModificationCount;
+        private final long rootModificationCount;
+        private final long editCount;
+        private final long configGeneration;
+
+        private Stamp(long structureModificationCount, long rootModificationCount, long editCount, long configGeneration) {
+            this.structureModificationCount = structureModificationCount;
+            this.rootModificationCount = rootModificationCount;
+            this.editCount = editCount;
+            this.configGeneration = configGeneration;
+        }
+
+        /**
+         * must be called in read action
+         * @return current stamp of project
+         */
+        public static Stamp current(Project project) {
+            CopyCallChangeTracker changeTracker = CopyCallChangeTracker.getInstance(project);
+            return new Stamp(changeTracker.getStructureModificationCount(),
+                    ProjectRootModificationTracker.getInstance(project).getModificationCount(),
+                    changeTracker.getEditCount(),
+                    getInstance(project).getConfigGeneration());
+        }
+
+        boolean isSameModification(Stamp stamp) {
+            return structureModificationCount == stamp.structureModificationCount
+                    && rootModificationCount == stamp.rootModificationCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Stamp stamp)) {
+                return false;
+            }
+            return isSameModification(stamp) && editCount == stamp.editCount && configGeneration == stamp.configGeneration;
         }
 
-        public List<CopyUsageInfo> getValue() {
-            return isExpired() ? null : value;
+        @Override
+        public int hashCode() {
+            return Objects.hash(structureModificationCount, rootModificationCount, editCount, configGeneration);
         }
     }
 
-}
\ No newline at end of file
+}
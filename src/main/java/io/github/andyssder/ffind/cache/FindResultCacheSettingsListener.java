@@ -0,0 +1,36 @@
+package io.github.andyssder.ffind.cache;
+
+import com.intellij.openapi.project.Project;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.model.state.SettingsChangeListener;
+
+import java.util.List;
+
+/**
+ * pass settings changes to find result cache of the project, if the cache has been created
+ */
+public class FindResultCacheSettingsListener implements SettingsChangeListener {
+
+    private final Project project;
+
+    public FindResultCacheSettingsListener(Project project) {
+        this.project = project;
+    }
+
+    @Override
+    public void methodConfigsChanged(List<MethodConfig> removedConfigs, List<MethodConfig> addedConfigs) {
+        FindResultCache cache = project.getServiceIfCreated(FindResultCache.class);
+        if (cache != null) {
+            cache.onMethodConfigsChanged(removedConfigs, addedConfigs);
+        }
+    }
+
+    @Override
+    public void generalConfigChanged(GeneralConfig oldConfig, GeneralConfig newConfig) {
+        FindResultCache cache = project.getServiceIfCreated(FindResultCache.class);
+        if (cache != null) {
+            cache.onGeneralConfigChanged(newConfig);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.andyssder.ffind.common;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Computable;
+
+/**
+ * read actions of long searches
+ */
+public class ReadActionUtil {
+
+    /**
+     * run computation in a read action which yields to write actions and is restarted after them,
+     * runs directly if read access is already allowed. computation should have no side effects
+     * @param computation small unit of search
+     * @return result of computation
+     */
+    public static <T> T compute(Computable<T> computation) {
+        ProgressManager.checkCanceled();
+        if (ApplicationManager.getApplication().isReadAccessAllowed()) {
+            return computation.compute();
+        }
+        return ReadAction.nonBlocking(computation::compute).executeSynchronously();
+    }
+}
@@ -1,33 +1,50 @@
 package io.github.andyssder.ffind.detector;
 
 import com.intellij.find.findUsages.FindUsagesOptions;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.SearchScope;
+import com.intellij.psi.search.searches.ClassInheritorsSearch;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.Processor;
+import com.intellij.util.containers.ContainerUtil;
+import io.github.andyssder.ffind.cache.CachedUsage;
 import io.github.andyssder.ffind.cache.FindResultCache;
 import io.github.andyssder.ffind.common.FindType;
+import io.github.andyssder.ffind.common.ReadActionUtil;
 import io.github.andyssder.ffind.common.ReferenceType;
+import io.github.andyssder.ffind.index.CopyCallChangeTracker;
+import io.github.andyssder.ffind.index.CopyCallSite;
+import io.github.andyssder.ffind.index.CopyCallSiteTable;
 import io.github.andyssder.ffind.model.GeneralConfig;
 import io.github.andyssder.ffind.model.MethodConfig;
 import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
 import io.github.andyssder.ffind.model.idea.MethodCallReference;
 import io.github.andyssder.ffind.model.state.GeneralSetting;
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
 
 public abstract class AbstractCopyUsageInfoDetector implements CopyUsageInfoDetector{
 
     /**
-     * the most important method in the plugin
+     * the most important method in the plugin, usage infos are passed to processor as soon as they are found
      * @param element target element
      * @param options find option
-     * @return usage info of target element in copy method
+     * @param processor receives usage info of target element in copy method, returns false to stop
+     * @return false if processor stopped the search
      */
-    @NotNull
-    public abstract List<CopyUsageInfo> findCopyUsageInfo(PsiElement element, FindUsagesOptions options);
+    public abstract boolean processCopyUsageInfo(PsiElement element, FindUsagesOptions options, Processor<? super CopyUsageInfo> processor);
 
     /**
      * chose detector by element
@@ -37,81 +54,359 @@ public abstract class AbstractCopyUsageInfoDetector implements CopyUsageInfoDete
     public abstract Boolean isEnable(PsiElement element);
 
     /**
-     * find usages in given PsiMethodCallExpression for target PsiField
-     * @return list of copy usages for target field
+     * return search scope of find options, must be called in read action
+     * @return search scope or null if all scope is searched
      */
-    List<CopyUsageInfo> findCopyUsagesForField(PsiMethodCallExpression matchedCall, PsiField targetField, MethodConfig methodConfig, FindType findType) {
+    GlobalSearchScope getSearchScope(Project project, FindUsagesOptions options) {
+        SearchScope searchScope = options != null ? options.searchScope : null;
+        GlobalSearchScope scope = null;
+        if (searchScope instanceof GlobalSearchScope globalSearchScope) {
+            scope = globalSearchScope;
+        } else if (searchScope instanceof LocalSearchScope localSearchScope) {
+            scope = GlobalSearchScope.filesScope(project, Arrays.asList(localSearchScope.getVirtualFiles()));
+        }
+        if (scope == null || scope.equals(GlobalSearchScope.allScope(project))) {
+            return null;
+        }
+        return scope;
+    }
 
-        List<CopyUsageInfo> results = new ArrayList<>();
+    /**
+     * pass usages of target PsiField to processor, results of all scope are taken from and saved in cache.
+     * a wide scope like project scope searches all scope the same way and passes only usages in scope,
+     * narrower scopes are answered by the cached result of all scope filtered by scope, or searched by themselves.
+     * the search runs in small read actions which yield to write actions and is stopped when it is canceled
+     * @param findType slice of the field result wanted by field, getter or setter
+     * @param cacheKey cache key of target field, shared by its getter and setter
+     * @return false if processor stopped the search
+     */
+    boolean processCopyUsagesWithCache(PsiField targetField, FindType findType, String cacheKey, FindUsagesOptions options,
+                                       Processor<? super CopyUsageInfo> processor) {
+        Project project = targetField.getProject();
 
-        PsiClass searchContainingClass = targetField.getContainingClass();
-        if (searchContainingClass == null) {
-            return results;
+        GlobalSearchScope scope = ReadActionUtil.compute(() -> getSearchScope(project, options));
+        if (!isCacheEnable()) {
+            return processCopyUsages(targetField, findType, scope, processor);
+        }
+        if (scope != null && !CopyCallSiteTable.getInstance(project).isWideScope(scope)) {
+            return processScopedCopyUsagesWithCache(targetField, findType, cacheKey, scope, processor);
+        }
+
+        Processor<CopyUsageInfo> scopedProcessor = filterByScope(processor, scope);
+        FindResultCache cache = FindResultCache.getInstance(project);
+        String searchKey = ReadActionUtil.compute(() -> generateSearchKey(targetField, cacheKey));
+        while (true) {
+            List<CopyUsageInfo> cacheResult = getCacheResult(targetField, cacheKey);
+            if (Objects.nonNull(cacheResult)) {
+                return ContainerUtil.process(ContainerUtil.filter(cacheResult, usageInfo -> isOfFindType(usageInfo, findType)), scopedProcessor);
+            }
+            // waiting in read action would block writes which the running search waits for,
+            // such a caller searches without registering, so it must not finish the search of another caller
+            boolean owner = !ApplicationManager.getApplication().isReadAccessAllowed();
+            CompletableFuture<Void> running = owner ? cache.startSearch(searchKey) : null;
+            if (Objects.isNull(running)) {
+                try {
+                    return processClassCopyUsagesWithCache(targetField, findType, scopedProcessor);
+                } finally {
+                    if (owner) {
+                        cache.finishSearch(searchKey);
+                    }
+                }
+            }
+            // canceling this caller stops waiting only, the running search goes on for its caller.
+            // result is taken from cache after, if the search was stopped or not saved this caller searches itself
+            ProgressIndicatorUtils.awaitWithCheckCanceled(running);
         }
+    }
 
-        String searchClassName = searchContainingClass.getQualifiedName();
-        if (StringUtils.isEmpty(searchClassName)) {
-            return results;
+    /**
+     * pass usages in given scope, taken from cached result of all scope if it exists.
+     * only results of all scope are cached, a miss searches the scope without saving or evicting anything
+     * @param scope scope narrower than all scope
+     * @return false if processor stopped the search
+     */
+    private boolean processScopedCopyUsagesWithCache(PsiField targetField, FindType findType, String cacheKey,
+                                                     GlobalSearchScope scope, Processor<? super CopyUsageInfo> processor) {
+        List<CopyUsageInfo> cacheResult = getCacheResult(targetField, cacheKey);
+        if (Objects.isNull(cacheResult)) {
+            return processCopyUsages(targetField, findType, scope, processor);
         }
+        List<CopyUsageInfo> scopedResult = ReadActionUtil.compute(() -> ContainerUtil.filter(cacheResult,
+                usageInfo -> isOfFindType(usageInfo, findType) && isInScope(usageInfo, scope)));
+        return ContainerUtil.process(scopedResult, processor);
+    }
 
-        PsiExpression[] matchedCallArgs = matchedCall.getArgumentList().getExpressions();
-        int sourceParamIndex = methodConfig.getSourceParamIndex();
-        int targetParamIndex = methodConfig.getTargetParamIndex();
-        if (matchedCallArgs.length <= Math.max(sourceParamIndex, targetParamIndex)) {
-            return results;
+    /**
+     * @param scope scope of usages passed to processor, null for all scope
+     * @return processor which skips usages out of scope
+     */
+    private static Processor<CopyUsageInfo> filterByScope(Processor<? super CopyUsageInfo> processor, GlobalSearchScope scope) {
+        if (scope == null) {
+            return processor::process;
         }
+        return usageInfo -> !ReadActionUtil.compute(() -> isInScope(usageInfo, scope)) || processor.process(usageInfo);
+    }
 
-        PsiExpression sourceArg = matchedCallArgs[sourceParamIndex];
-        PsiExpression targetArg = matchedCallArgs[targetParamIndex];
+    private static boolean isInScope(CopyUsageInfo usageInfo, GlobalSearchScope scope) {
+        VirtualFile file = usageInfo.getVirtualFile();
+        return file != null && scope.contains(file);
+    }
 
-        if (methodConfig.getIncludeFieldParamEnable() ^ methodConfig.getExcludeFiledParamEnable()) {
-            boolean isContainSearchField = false;
-            int methodParamNum = methodConfig.getParamNames().size();
-            for (int i = methodParamNum - 1; i < matchedCallArgs.length; i++) {
-                PsiExpression arg = matchedCallArgs[i];
-
-                String target = targetField.getName();
-                String argText = arg.getText().replaceAll("\"", "");
-                if (StringUtils.equals(argText, target)) {
-                    isContainSearchField = true;
-                    break;
+    /**
+     * key of the search filling cache of all fields of the class which contains target field, must be called in read action
+     * @param cacheKey cache key of target field, used when the class has no name
+     */
+    private static String generateSearchKey(PsiField targetField, String cacheKey) {
+        PsiClass containingClass = targetField.isValid() ? targetField.getContainingClass() : null;
+        String className = containingClass != null ? containingClass.getQualifiedName() : null;
+        return className != null ? "class:" + className : "field:" + cacheKey;
+    }
+
+    /**
+     * search copy calls of the class which contains target field once for all its fields,
+     * usages of target field are passed to processor and read and write usages of every field are cached together.
+     * whether a call copies a field only depends on the call, so the search costs the same as for one field.
+     * usages of other fields are only kept as files and ranges, usage infos are built for target field only
+     * @return false if processor stopped the search
+     */
+    private boolean processClassCopyUsagesWithCache(PsiField targetField, FindType findType, Processor<? super CopyUsageInfo> processor) {
+        Project project = targetField.getProject();
+        FindResultCache.Stamp stamp = ReadActionUtil.compute(() -> FindResultCache.Stamp.current(project));
+        Set<String> searchClassNames = getSearchClassNames(targetField);
+        List<PsiField> fields = ReadActionUtil.compute(() -> {
+            PsiClass containingClass = targetField.isValid() ? targetField.getContainingClass() : null;
+            return containingClass != null ? List.of(containingClass.getFields()) : List.of(targetField);
+        });
+
+        Map<PsiField, List<CachedUsage>> results = new LinkedHashMap<>();
+        fields.forEach(field -> results.put(field, new ArrayList<>()));
+        results.putIfAbsent(targetField, new ArrayList<>());
+        Set<MethodConfig> searchedConfigs = new HashSet<>();
+        boolean completed = searchClassNames.isEmpty() || CopyCallSiteTable.getInstance(project).processCallSites(searchClassNames, null, callSite -> {
+            searchedConfigs.add(callSite.getMethodConfig());
+            // usage infos of target field and cached form of all fields
+            Pair<List<CopyUsageInfo>, Map<PsiField, List<CachedUsage>>> found = ReadActionUtil.compute(() -> {
+                Map<PsiField, List<CachedUsage>> cachedUsages = new HashMap<>();
+                PsiMethodCallExpression callExpression = callSite.findCallExpression(project);
+                if (callExpression == null || !targetField.isValid()) {
+                    return Pair.create(Collections.<CopyUsageInfo>emptyList(), cachedUsages);
+                }
+                for (PsiField field : fields) {
+                    if (field != targetField && field.isValid()) {
+                        cachedUsages.put(field, findCopyUsagesForField(callSite, callExpression, field, searchClassNames,
+                                FindType.ALL, CachedUsage::of));
+                    }
+                }
+                List<CopyUsageInfo> usageInfos = findCopyUsagesForField(callSite, callExpression, targetField, searchClassNames,
+                        FindType.ALL, CopyUsageInfo::new);
+                cachedUsages.put(targetField, ContainerUtil.mapNotNull(usageInfos, CachedUsage::of));
+                return Pair.create(usageInfos, cachedUsages);
+            });
+            found.getSecond().forEach((field, fieldUsages) -> results.get(field).addAll(fieldUsages));
+            List<CopyUsageInfo> targetUsageInfos = found.getFirst();
+            return ContainerUtil.process(ContainerUtil.filter(targetUsageInfos, usageInfo -> isOfFindType(usageInfo, findType)), processor);
+        });
+        // stopped search has only part of result
+        if (completed) {
+            Map<String, List<CachedUsage>> cacheResults = ReadActionUtil.compute(() -> getCacheResultsOfClass(results));
+            FindResultCache cache = FindResultCache.getInstance(project);
+            cacheResults.forEach((key, result) -> cache.updateCachedUsages(key, result, stamp, searchClassNames, searchedConfigs));
+        }
+        return completed;
+    }
+
+    /**
+     * results of fields by cache key, must be called in read action
+     */
+    private static Map<String, List<CachedUsage>> getCacheResultsOfClass(Map<PsiField, List<CachedUsage>> results) {
+        Map<String, List<CachedUsage>> cacheResults = new LinkedHashMap<>();
+        results.forEach((field, result) -> {
+            if (field.isValid()) {
+                cacheResults.put(generateCacheKey(field), result);
+            }
+        });
+        return cacheResults;
+    }
+
+    private static boolean isOfFindType(CopyUsageInfo usageInfo, FindType findType) {
+        return switch (findType) {
+            case ALL -> true;
+            case INDIRECT_READ -> ReferenceType.INDIRECT_READ.equals(usageInfo.getType());
+            case INDIRECT_WRITE -> ReferenceType.INDIRECT_WRITE.equals(usageInfo.getType());
+        };
+    }
+
+    /**
+     * cache key of field: className#fieldName, must be called in read action
+     */
+    static String generateCacheKey(PsiField field) {
+        PsiClass containingClass = field.getContainingClass();
+        String className = containingClass != null ? containingClass.getQualifiedName() : "Anonymous";
+        return className + "#" + field.getName();
+    }
+
+    /**
+     * pass usages in copy calls of the class which contains target PsiField and its inheritors to processor
+     * @param scope search scope, null for all scope
+     * @return false if processor stopped the search
+     */
+    boolean processCopyUsages(PsiField targetField, FindType findType, GlobalSearchScope scope,
+                              Processor<? super CopyUsageInfo> processor) {
+        return processCopyUsages(targetField, getSearchClassNames(targetField), findType, scope, new HashSet<>(), processor);
+    }
+
+    /**
+     * @param searchedConfigs receives configs of copy calls which use any of the classes
+     * @return false if processor stopped the search
+     */
+    private boolean processCopyUsages(PsiField targetField, Set<String> searchClassNames, FindType findType, GlobalSearchScope scope,
+                                      Set<MethodConfig> searchedConfigs, Processor<? super CopyUsageInfo> processor) {
+        if (searchClassNames.isEmpty()) {
+            return true;
+        }
+
+        Project project = targetField.getProject();
+        return CopyCallSiteTable.getInstance(project).processCallSites(searchClassNames, scope, callSite -> {
+            searchedConfigs.add(callSite.getMethodConfig());
+            List<CopyUsageInfo> usageInfos = ReadActionUtil.compute(() -> {
+                PsiMethodCallExpression callExpression = targetField.isValid() ? callSite.findCallExpression(project) : null;
+                if (callExpression == null) {
+                    return Collections.<CopyUsageInfo>emptyList();
                 }
+                return findCopyUsagesForField(callSite, callExpression, targetField, searchClassNames, findType);
+            });
+            return ContainerUtil.process(usageInfos, processor);
+        });
+    }
+
+    /**
+     * @return qualified names of the class which contains target field and its inheritors, empty if field is invalid
+     */
+    private static Set<String> getSearchClassNames(PsiField targetField) {
+        return ReadActionUtil.compute(() -> {
+            PsiClass searchContainingClass = targetField.isValid() ? targetField.getContainingClass() : null;
+            return searchContainingClass != null ? getClassNamesWithInheritors(searchContainingClass) : Collections.<String>emptySet();
+        });
+    }
+
+    /**
+     * qualified names of given class and all its inheritors, must be called in read action.
+     * cached until structure or project roots change, edits inside method bodies keep it
+     * @return class names, given class first
+     */
+    static Set<String> getClassNamesWithInheritors(PsiClass psiClass) {
+        return CachedValuesManager.getCachedValue(psiClass, () -> {
+            Set<String> classNames = new LinkedHashSet<>();
+            if (StringUtils.isNotEmpty(psiClass.getQualifiedName())) {
+                classNames.add(psiClass.getQualifiedName());
             }
+            ClassInheritorsSearch.search(psiClass, GlobalSearchScope.allScope(psiClass.getProject()), true).forEach(inheritor -> {
+                if (StringUtils.isNotEmpty(inheritor.getQualifiedName())) {
+                    classNames.add(inheritor.getQualifiedName());
+                }
+                return true;
+            });
+            Project project = psiClass.getProject();
+            return CachedValueProvider.Result.create(Collections.unmodifiableSet(classNames),
+                    CopyCallChangeTracker.getInstance(project).getStructureModificationTracker(),
+                    ProjectRootModificationTracker.getInstance(project));
+        });
+    }
+
+    /**
+     * find usages in given copy call for target PsiField
+     * @param matchedCall call of call site, see {@link CopyCallSite#findCallExpression(Project)}
+     * @param searchClassNames class which contains target field and its inheritors
+     * @return list of copy usages for target field
+     */
+    List<CopyUsageInfo> findCopyUsagesForField(CopyCallSite callSite, PsiMethodCallExpression matchedCall, PsiField targetField,
+                                               Set<String> searchClassNames, FindType findType) {
+        return findCopyUsagesForField(callSite, matchedCall, targetField, searchClassNames, findType, CopyUsageInfo::new);
+    }
+
+    /**
+     * @param usageFactory builds a usage of a copy argument, may return null for an invalid one
+     * @return usages built by factory, nulls left out
+     */
+    private static <T> List<T> findCopyUsagesForField(CopyCallSite callSite, PsiMethodCallExpression matchedCall, PsiField targetField,
+                                                      Set<String> searchClassNames, FindType findType,
+                                                      BiFunction<? super MethodCallReference, ReferenceType, T> usageFactory) {
+
+        List<T> results = new ArrayList<>();
+
+        MethodConfig methodConfig = callSite.getMethodConfig();
+
+        if (methodConfig.getIncludeFieldParamEnable() ^ methodConfig.getExcludeFiledParamEnable()) {
+            boolean isContainSearchField = callSite.getPropertyNames().contains(targetField.getName());
             boolean includeCondition = methodConfig.getIncludeFieldParamEnable() && !isContainSearchField;
             boolean excludeCondition = methodConfig.getExcludeFiledParamEnable() && isContainSearchField;
             if (includeCondition || excludeCondition) {
                 return results;
             }
         }
-        if (!FindType.INDIRECT_WRITE.equals(findType) && sourceArg.getType() != null && sourceArg.getType().equalsToText(searchClassName)) {
-            results.add(new CopyUsageInfo(new MethodCallReference(matchedCall, sourceArg), ReferenceType.INDIRECT_READ));
+        if (!FindType.INDIRECT_WRITE.equals(findType) && searchClassNames.contains(callSite.getSourceType())) {
+            ContainerUtil.addIfNotNull(results, usageFactory.apply(
+                    new MethodCallReference(matchedCall, callSite.getSourceArg(matchedCall)), ReferenceType.INDIRECT_READ));
         }
-        if (!FindType.INDIRECT_READ.equals(findType) && targetArg.getType() != null && targetArg.getType().equalsToText(searchClassName)) {
-            results.add(new CopyUsageInfo(new MethodCallReference(matchedCall, targetArg), ReferenceType.INDIRECT_WRITE));
+        if (!FindType.INDIRECT_READ.equals(findType) && searchClassNames.contains(callSite.getTargetType())) {
+            ContainerUtil.addIfNotNull(results, usageFactory.apply(
+                    new MethodCallReference(matchedCall, callSite.getTargetArg(matchedCall)), ReferenceType.INDIRECT_WRITE));
         }
 
         return results;
     }
 
-    List<CopyUsageInfo> getCacheResult(String cacheKey) {
+    boolean isCacheEnable() {
         GeneralConfig generalConfig = GeneralSetting.getInstance().getGeneralConfig();
-        if (generalConfig.getCacheEnable()) {
-            Optional<List<CopyUsageInfo>> cached = FindResultCache.getInstance().getCachedResul(cacheKey);
-            if (cached.isPresent()) {
-                return cached.get();
-            }
-        }
-        return null;
+        return generalConfig != null && Boolean.TRUE.equals(generalConfig.getCacheEnable());
     }
 
-    void setCacheResult(String cacheKey, List<CopyUsageInfo> result) {
-        if (CollectionUtils.isEmpty(result)) {
-            return;
+    /**
+     * cached result of target field, usages of files edited inside method bodies since it was saved
+     * are searched again and the patched result is saved
+     * @return result or null if not cached or the search of edited files was stopped
+     */
+    List<CopyUsageInfo> getCacheResult(PsiField targetField, String cacheKey) {
+        Project project = targetField.getProject();
+        // taken before the lookup, files edited after it are searched again next time
+        FindResultCache.Stamp stamp = ReadActionUtil.compute(() -> FindResultCache.Stamp.current(project));
+        Optional<FindResultCache.PartialResult> cached = FindResultCache.getInstance(project).getPartialResult(cacheKey);
+        if (cached.isEmpty()) {
+            return null;
         }
-        GeneralConfig generalConfig = GeneralSetting.getInstance().getGeneralConfig();
-        if (generalConfig.getCacheEnable()) {
-            FindResultCache.getInstance().updateCacheResult(cacheKey, result, generalConfig.getCacheTime());
+        FindResultCache.PartialResult partialResult = cached.get();
+        if (partialResult.getChangedFiles().isEmpty()) {
+            return partialResult.getUsageInfos();
+        }
+
+        Set<String> searchClassNames = getSearchClassNames(targetField);
+        GlobalSearchScope changedScope = ReadActionUtil.compute(() -> GlobalSearchScope.filesScope(project,
+                ContainerUtil.filter(partialResult.getChangedFiles(), VirtualFile::isValid)));
+        List<CopyUsageInfo> result = new ArrayList<>(partialResult.getUsageInfos());
+        Set<MethodConfig> searchedConfigs = new HashSet<>();
+        boolean completed = processCopyUsages(targetField, searchClassNames, FindType.ALL, changedScope, searchedConfigs, usageInfo -> {
+            result.add(usageInfo);
+            return true;
+        });
+        if (!completed) {
+            return null;
         }
+        // configs of kept usages stay, unknown configs stay unknown
+        if (Objects.nonNull(partialResult.getMethodConfigs())) {
+            searchedConfigs.addAll(partialResult.getMethodConfigs());
+        }
+        setCacheResult(project, cacheKey, result, stamp, searchClassNames,
+                Objects.nonNull(partialResult.getMethodConfigs()) ? searchedConfigs : null);
+        return result;
+    }
+
+    /**
+     * save result in cache with the stamp taken before the search and what the result depends on.
+     * empty result is cached too, most fields are never copied
+     */
+    void setCacheResult(Project project, String cacheKey, List<CopyUsageInfo> result, FindResultCache.Stamp stamp,
+                        Set<String> searchClassNames, Set<MethodConfig> searchedConfigs) {
+        FindResultCache.getInstance(project).updateCacheResult(cacheKey, result, stamp, searchClassNames, searchedConfigs);
     }
 
 }
@@ -1,86 +1,258 @@
 package io.github.andyssder.ffind.detector;
 
+import com.intellij.lang.java.JavaLanguage;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.SensitiveProgressWrapper;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
 import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ReferencesSearch;
-import com.intellij.util.Query;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.TypeConversionUtil;
+import com.intellij.util.Processor;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import io.github.andyssder.ffind.common.ReadActionUtil;
+import io.github.andyssder.ffind.index.CopyCallEntry;
+import io.github.andyssder.ffind.index.CopyCallIndex;
 import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.model.MethodConfigLookup;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
 
 public class CopyMethodReferenceDetector {
 
+    // method config group -> resolved methods
+    private static final Key<CachedValue<Map<List<MethodConfig>, ResolvedMethods>>> RESOLVED_METHODS_KEY =
+            Key.create("io.github.andyssder.ffind.ResolvedMethods");
+
     /**
-     * return reference method of target method config
+     * pass each reference method of method configs with same class name and method name to processor as soon as it is found,
+     * in order of files. each file is searched in its own read action which yields to write actions,
+     * so it may be searched again and mapper should have no side effects.
+     * files are searched by several threads when parallelism is greater than 1 and caller doesn't hold read access
      * @param project idea project
-     * @param methodConfig user config
-     * @return list of target method call expression
+     * @param methodConfigs user configs of one group, see {@link MethodConfigLookup#getGroups()}
+     * @param scope scope of calls, copy methods themselves are always resolved in all scope
+     * @param parallelism max number of threads searching files
+     * @param progress receives fraction of files searched
+     * @param mapper maps config of resolved overload and call in read action, returns null to skip the call
+     * @param processor receives mapped calls out of read action, returns false to stop
+     * @return false if processor stopped the search
      */
-    public static List<PsiMethodCallExpression> findMethodCalls(Project project, MethodConfig methodConfig) {
+    public static <T> boolean processMethodCalls(Project project, List<MethodConfig> methodConfigs, GlobalSearchScope scope,
+                                                 int parallelism, DoubleConsumer progress,
+                                                 BiFunction<MethodConfig, PsiMethodCallExpression, T> mapper,
+                                                 Processor<? super T> processor) {
 
-        List<PsiMethodCallExpression> result = new ArrayList<>();
-
-        PsiMethod psiMethod = findPsiMethod(project, methodConfig);
-        if (psiMethod == null) {
-            return result;
+        // shared by worker threads, resolved maps are never changed after they are published
+        AtomicReference<Map<PsiMethod, MethodConfig>> psiMethods =
+                new AtomicReference<>(ReadActionUtil.compute(() -> getPsiMethods(project, methodConfigs)));
+        if (psiMethods.get().isEmpty()) {
+            return true;
         }
 
-        Query<PsiReference> query = ReferencesSearch.search(psiMethod);
-        query.forEach(ref -> {
-            PsiElement element = ref.getElement();
+        // calls with fewer arguments can't provide source and target of any config
+        int minArgumentCount = psiMethods.get().values().stream()
+                .mapToInt(config -> Math.max(config.getSourceParamIndex(), config.getTargetParamIndex()) + 1)
+                .min().orElse(0);
+        PsiManager psiManager = PsiManager.getInstance(project);
+        String methodName = methodConfigs.get(0).getMethodName();
+        // calls of each file are loaded when the file is searched
+        List<VirtualFile> files = ReadActionUtil.compute(() -> CopyCallIndex.getFiles(methodName, scope));
+        Function<VirtualFile, List<T>> fileSearch = file -> ReadActionUtil.compute(() -> {
+            // copy methods are resolved again after they were changed by a write action
+            Map<PsiMethod, MethodConfig> currentPsiMethods = psiMethods.get();
+            if (!ContainerUtil.and(currentPsiMethods.keySet(), PsiElement::isValid)) {
+                currentPsiMethods = getPsiMethods(project, methodConfigs);
+                psiMethods.set(currentPsiMethods);
+            }
+            List<CopyCallEntry> entries = file.isValid() ? CopyCallIndex.getCallEntries(methodName, file, project) : List.of();
+            return findMethodCallsInFile(psiManager, file, entries, minArgumentCount, currentPsiMethods, mapper);
+        });
+
+        // workers can't get read access while caller holds it and a write action is waiting
+        boolean parallel = parallelism > 1 && files.size() > 1 && !ApplicationManager.getApplication().isReadAccessAllowed();
+        if (parallel) {
+            return processInParallel(files, fileSearch, parallelism, progress, processor);
+        }
+        for (int i = 0; i < files.size(); i++) {
+            progress.accept((double) i / files.size());
+            if (!ContainerUtil.process(fileSearch.apply(files.get(i)), processor)) {
+                return false;
+            }
+        }
+        progress.accept(1);
+        return true;
+    }
 
-            PsiMethodCallExpression callExpression = findCallExpression(element);
-            if (callExpression != null) {
-                result.add(callExpression);
+    /**
+     * search files by a bounded number of threads, results are passed to processor in order of files.
+     * at most twice parallelism files are searched ahead of processor
+     */
+    private static <F, T> boolean processInParallel(List<F> files, Function<F, List<T>> fileSearch, int parallelism,
+                                                    DoubleConsumer progress, Processor<? super T> processor) {
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        // canceled with the search, or by us when processor stops it
+        ProgressIndicator workerIndicator = indicator != null ? new SensitiveProgressWrapper(indicator) : new EmptyProgressIndicator();
+        ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("FFind Copy Call Search", parallelism);
+        int window = parallelism * 2;
+        List<Future<List<T>>> futures = new ArrayList<>(files.size());
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                while (futures.size() < files.size() && futures.size() < i + window) {
+                    F file = files.get(futures.size());
+                    futures.add(executor.submit(() ->
+                            ProgressManager.getInstance().runProcess(() -> fileSearch.apply(file), workerIndicator)));
+                }
+                progress.accept((double) i / files.size());
+                List<T> calls = ProgressIndicatorUtils.awaitWithCheckCanceled(futures.get(i));
+                // release results which have been processed
+                futures.set(i, null);
+                if (!ContainerUtil.process(calls, processor)) {
+                    return false;
+                }
             }
+            progress.accept(1);
             return true;
-        });
+        } finally {
+            workerIndicator.cancel();
+            futures.stream().filter(Objects::nonNull).forEach(future -> future.cancel(false));
+        }
+    }
 
+    private static <T> List<T> findMethodCallsInFile(PsiManager psiManager, VirtualFile file, List<CopyCallEntry> entries,
+                                                     int minArgumentCount, Map<PsiMethod, MethodConfig> psiMethods,
+                                                     BiFunction<MethodConfig, PsiMethodCallExpression, T> mapper) {
+        List<T> result = new ArrayList<>();
+        PsiFile psiFile = file.isValid() ? psiManager.findFile(file) : null;
+        if (psiFile == null) {
+            return result;
+        }
+        for (CopyCallEntry entry : entries) {
+            if (entry.getArgumentCount() < minArgumentCount) {
+                continue;
+            }
+            PsiMethodCallExpression callExpression = findCallExpression(psiFile, entry.getOffset());
+            if (callExpression == null) {
+                continue;
+            }
+            MethodConfig methodConfig = findMethodConfig(psiManager, psiMethods, callExpression.resolveMethod());
+            T call = methodConfig != null ? mapper.apply(methodConfig, callExpression) : null;
+            if (call != null) {
+                result.add(call);
+            }
+        }
         return result;
     }
 
     /**
-     * find psi method by method config
+     * cached psi methods of method configs with same class name and method name, must be called in read action.
+     * cache is dropped when project roots change, configs of unchanged groups keep their entries,
+     * an entry is resolved again when java code changed, a class or overload not found is cached too
+     * @return psi method -> first config matches it
      */
-    private static PsiMethod findPsiMethod(Project project, MethodConfig methodConfig) {
+    private static Map<PsiMethod, MethodConfig> getPsiMethods(Project project, List<MethodConfig> methodConfigs) {
+        Map<List<MethodConfig>, ResolvedMethods> cache = CachedValuesManager.getManager(project).getCachedValue(project,
+                RESOLVED_METHODS_KEY, () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(),
+                        ProjectRootModificationTracker.getInstance(project)), false);
+        long javaModificationCount = getJavaModificationTracker(project).getModificationCount();
+        ResolvedMethods resolvedMethods = cache.get(methodConfigs);
+        if (resolvedMethods == null || !resolvedMethods.isUpToDate(javaModificationCount)) {
+            resolvedMethods = findPsiMethods(project, methodConfigs, javaModificationCount);
+            cache.put(methodConfigs, resolvedMethods);
+        }
+        return resolvedMethods.getPsiMethods();
+    }
+
+    private static ModificationTracker getJavaModificationTracker(Project project) {
+        return PsiModificationTracker.getInstance(project).forLanguage(JavaLanguage.INSTANCE);
+    }
 
-        String targetClassName = methodConfig.getClassName();
-        String targetMethodName = methodConfig.getMethodName();
+    /**
+     * find psi methods of method configs with same class name and method name
+     * @return psi method -> first config matches it
+     */
+    private static ResolvedMethods findPsiMethods(Project project, List<MethodConfig> methodConfigs, long javaModificationCount) {
+
+        Map<PsiMethod, MethodConfig> result = new LinkedHashMap<>();
+        if (methodConfigs.isEmpty()) {
+            return new ResolvedMethods(result, javaModificationCount);
+        }
+
+        String targetClassName = methodConfigs.get(0).getClassName();
+        String targetMethodName = methodConfigs.get(0).getMethodName();
 
         PsiClass psiClass = JavaPsiFacade.getInstance(project)
                 .findClass(targetClassName, GlobalSearchScope.allScope(project));
 
         if (psiClass == null) {
-            return null;
+            return new ResolvedMethods(result, javaModificationCount);
         }
 
         PsiMethod[] methods = psiClass.findMethodsByName(targetMethodName, true);
-        for (PsiMethod method : methods) {
-            boolean matchResult = matches(method, methodConfig);
-            if (matchResult) {
-                return method;
+        for (MethodConfig methodConfig : methodConfigs) {
+            PsiMethod matchedMethod = ContainerUtil.find(methods, method -> matches(method, methodConfig));
+            if (matchedMethod != null) {
+                result.putIfAbsent(matchedMethod, methodConfig);
+            }
+        }
+        return new ResolvedMethods(result, javaModificationCount);
+    }
+
+    /**
+     * find config of resolved overload
+     */
+    private static MethodConfig findMethodConfig(PsiManager psiManager, Map<PsiMethod, MethodConfig> psiMethods,
+                                                 PsiMethod resolvedMethod) {
+        if (resolvedMethod == null) {
+            return null;
+        }
+        for (Map.Entry<PsiMethod, MethodConfig> entry : psiMethods.entrySet()) {
+            if (psiManager.areElementsEquivalent(resolvedMethod, entry.getKey())) {
+                return entry.getValue();
             }
         }
         return null;
     }
 
     /**
-     * find psi method call expression by psi method
+     * find psi method call expression by offset of its method name
      */
-    private static PsiMethodCallExpression findCallExpression(PsiElement element) {
-        while (element != null && !(element instanceof PsiMethodCallExpression)) {
-            element = element.getParent();
+    private static PsiMethodCallExpression findCallExpression(PsiFile psiFile, int offset) {
+        PsiElement nameElement = psiFile.findElementAt(offset);
+        if (nameElement == null || !(nameElement.getParent() instanceof PsiReferenceExpression methodExpression)) {
+            return null;
+        }
+        if (methodExpression.getParent() instanceof PsiMethodCallExpression callExpression
+                && callExpression.getMethodExpression() == methodExpression) {
+            return callExpression;
         }
-        return (PsiMethodCallExpression) element;
+        return null;
     }
 
 
     /**
-     * return match result of given call and method config
+     * return match result of given call and method config,
+     * parameters are matched by erased types if config has them or by names
      * @param targetMethod method find in files
      * @param methodConfig user config
      * @return true when matched or false when not
@@ -103,9 +275,52 @@ public class CopyMethodReferenceDetector {
         }
 
         PsiParameterList psiParameterList = targetMethod.getParameterList();
+        List<String> paramTypeConfigList = methodConfig.getParamTypes();
+        if (paramTypeConfigList != null && !paramTypeConfigList.isEmpty()) {
+            // types are read from stubs, names of library methods may need sources or be lost
+            List<String> paramTypeList = Arrays.stream(psiParameterList.getParameters())
+                    .map(parameter -> getErasedTypeText(parameter.getType())).toList();
+            return paramTypeList.equals(paramTypeConfigList);
+        }
+
         List<String> paramNameList = Arrays.stream(psiParameterList.getParameters()).map(PsiParameter::getName).toList();
         List<String> paramConfigList = methodConfig.getParamNames();
 
         return paramNameList.equals(paramConfigList);
     }
+
+    /**
+     * erased canonical text of parameter type, varargs as array
+     */
+    public static String getErasedTypeText(PsiType type) {
+        if (type instanceof PsiEllipsisType ellipsisType) {
+            type = ellipsisType.toArrayType();
+        }
+        return TypeConversionUtil.erasure(type).getCanonicalText();
+    }
+
+    /**
+     * resolved methods of a config group, not found is kept too
+     */
+    private static class ResolvedMethods {
+        private final Map<PsiMethod, MethodConfig> psiMethods;
+        private final long javaModificationCount;
+
+        ResolvedMethods(Map<PsiMethod, MethodConfig> psiMethods, long javaModificationCount) {
+            this.psiMethods = Collections.unmodifiableMap(psiMethods);
+            this.javaModificationCount = javaModificationCount;
+        }
+
+        Map<PsiMethod, MethodConfig> getPsiMethods() {
+            return psiMethods;
+        }
+
+        /**
+         * a changed parameter name or type may change which config a method matches while it stays valid,
+         * and a missing class or overload may be added, both change java code. library changes drop the whole cache
+         */
+        boolean isUpToDate(long currentJavaModificationCount) {
+            return javaModificationCount == currentJavaModificationCount;
+        }
+    }
 }
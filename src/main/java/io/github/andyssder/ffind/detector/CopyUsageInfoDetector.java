@@ -3,20 +3,36 @@ package io.github.andyssder.ffind.detector;
 import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
 import com.intellij.find.findUsages.FindUsagesOptions;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.CommonProcessors;
+import com.intellij.util.Processor;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface CopyUsageInfoDetector {
 
     /**
-     * the most important method in the plugin
+     * the most important method in the plugin, usage infos are passed to processor as soon as they are found
+     * @param element target element
+     * @param options find option
+     * @param processor receives usage info of target element in copy method, returns false to stop
+     * @return false if processor stopped the search
+     */
+    boolean processCopyUsageInfo(PsiElement element, FindUsagesOptions options, Processor<? super CopyUsageInfo> processor);
+
+    /**
+     * collect all usage infos, see {@link #processCopyUsageInfo(PsiElement, FindUsagesOptions, Processor)}
      * @param element target element
      * @param options find option
      * @return usage info of target element in copy method
      */
     @NotNull
-    List<CopyUsageInfo> findCopyUsageInfo(PsiElement element, FindUsagesOptions options);
+    default List<CopyUsageInfo> findCopyUsageInfo(PsiElement element, FindUsagesOptions options) {
+        List<CopyUsageInfo> result = new ArrayList<>();
+        processCopyUsageInfo(element, options, new CommonProcessors.CollectProcessor<>(result));
+        return result;
+    }
 
     /**
      * chose detector by element
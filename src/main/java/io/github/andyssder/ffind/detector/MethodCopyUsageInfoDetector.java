@@ -2,20 +2,13 @@ package io.github.andyssder.ffind.detector;
 
 import com.intellij.find.findUsages.FindUsagesOptions;
 import com.intellij.openapi.application.ReadAction;
-import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
 import com.intellij.psi.util.PropertyUtil;
+import com.intellij.util.Processor;
 import io.github.andyssder.ffind.common.FindType;
-import io.github.andyssder.ffind.model.MethodConfig;
 import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
-import io.github.andyssder.ffind.model.state.MethodConfigSetting;
-import org.apache.commons.collections.CollectionUtils;
-import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
@@ -24,7 +17,7 @@ import java.util.concurrent.atomic.AtomicReference;
 public class MethodCopyUsageInfoDetector extends AbstractCopyUsageInfoDetector {
 
     @Override
-    public @NotNull List<CopyUsageInfo> findCopyUsageInfo(PsiElement element, FindUsagesOptions options) {
+    public boolean processCopyUsageInfo(PsiElement element, FindUsagesOptions options, Processor<? super CopyUsageInfo> processor) {
         PsiMethod method = (PsiMethod) element;
 
         boolean isSetter = PropertyUtil.isSimplePropertySetter(method);
@@ -38,30 +31,12 @@ public class MethodCopyUsageInfoDetector extends AbstractCopyUsageInfoDetector {
             findType = FindType.INDIRECT_READ;
         }
         if (Objects.isNull(targetField)) {
-            return new ArrayList<>();
+            return true;
         }
 
+        // getter and setter take their slice of the field result
         String cacheKey = generateKeyForMethod(method);
-        List<CopyUsageInfo> cacheResult = getCacheResult(cacheKey);
-        if (CollectionUtils.isNotEmpty(cacheResult)) {
-            return cacheResult;
-        }
-
-        List<CopyUsageInfo> result = new ArrayList<>();
-
-        Project project = targetField.getProject();
-        ReadAction.compute(() -> {
-            List<MethodConfig> methodConfigs = MethodConfigSetting.getInstance().getMethodConfigs();
-            methodConfigs.forEach(methodConfig -> {
-                List<PsiMethodCallExpression> psiMethodCallExpressionList = CopyMethodReferenceDetector.findMethodCalls(project, methodConfig);
-                psiMethodCallExpressionList.forEach(methodCallExpression ->
-                        result.addAll(findCopyUsagesForField(methodCallExpression, targetField, methodConfig, findType)));
-            });
-            return true;
-        });
-
-        setCacheResult(cacheKey, result);
-        return result;
+        return processCopyUsagesWithCache(targetField, findType, cacheKey, options, processor);
     }
 
     @Override
@@ -73,18 +48,15 @@ public class MethodCopyUsageInfoDetector extends AbstractCopyUsageInfoDetector {
     }
 
     /**
-     * generate cache key for method: className#MethodName
+     * generate cache key for method: key of the field it gets or sets, className#fieldName
      * @param method target setter/getter method which user wants to find
-     * @return cache key
+     * @return cache key or null if method has no field
      */
     private String generateKeyForMethod(PsiMethod method) {
-        AtomicReference<String> key = new AtomicReference<>();
-        ReadAction.compute(() -> {
-            PsiClass containingClass = method.getContainingClass();
-            String className = containingClass != null ? containingClass.getQualifiedName() : "Anonymous";
-            key.set(className + "#" + method.getName());
-            return true;
+        return ReadAction.compute(() -> {
+            PsiField field = PropertyUtil.isSimplePropertySetter(method)
+                    ? PropertyUtil.getFieldOfSetter(method) : PropertyUtil.getFieldOfGetter(method);
+            return field != null ? generateCacheKey(field) : null;
         });
-        return key.get();
     }
 }
@@ -2,17 +2,15 @@ package io.github.andyssder.ffind.handler;
 
 import io.github.andyssder.ffind.detector.CopyUsageInfoDetector;
 import io.github.andyssder.ffind.detector.CopyUsageInfoDetectorFactory;
-import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
 import com.intellij.find.findUsages.CustomUsageSearcher;
 import com.intellij.find.findUsages.FindUsagesOptions;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.psi.PsiElement;
 import com.intellij.usages.Usage;
 import com.intellij.usages.UsageInfo2UsageAdapter;
 import com.intellij.util.Processor;
-import org.apache.commons.collections.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.Objects;
 
 public class FindCopyUsageSearcher extends CustomUsageSearcher {
@@ -24,13 +22,7 @@ public class FindCopyUsageSearcher extends CustomUsageSearcher {
         if (Objects.isNull(copyUsageInfoDetector)) {
             return;
         }
-        List<CopyUsageInfo> usageInfoList = copyUsageInfoDetector.findCopyUsageInfo(element, options);
-        if (CollectionUtils.isEmpty(usageInfoList)) {
-            return;
-        }
-        usageInfoList.forEach(usageInfo -> {
-            Usage usage = new UsageInfo2UsageAdapter(usageInfo);
-            processor.process(usage);
-        });
+        copyUsageInfoDetector.processCopyUsageInfo(element, options,
+                usageInfo -> processor.process(ReadAction.compute(() -> new UsageInfo2UsageAdapter(usageInfo))));
     }
 }
@@ -2,16 +2,13 @@ package io.github.andyssder.ffind.handler;
 
 import io.github.andyssder.ffind.detector.CopyUsageInfoDetector;
 import io.github.andyssder.ffind.detector.CopyUsageInfoDetectorFactory;
-import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
 import com.intellij.find.findUsages.FindUsagesHandler;
 import com.intellij.find.findUsages.FindUsagesOptions;
 import com.intellij.psi.*;
 import com.intellij.usageView.UsageInfo;
 import com.intellij.util.Processor;
-import org.apache.commons.collections.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
 import java.util.Objects;
 
 @Deprecated
@@ -38,13 +35,7 @@ public class FindCopyUsagesHandler extends FindUsagesHandler {
         if (Objects.isNull(copyUsageInfoDetector)) {
             return true;
         }
-        List<CopyUsageInfo> usageInfoList = copyUsageInfoDetector.findCopyUsageInfo(element, options);
-        if (CollectionUtils.isEmpty(usageInfoList)) {
-            return true;
-        }
-
-        usageInfoList.forEach(processor::process);
-        return true;
+        return copyUsageInfoDetector.processCopyUsageInfo(element, options, processor::process);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.util.PsiTreeUtil;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * tracks psi changes by what they may affect.
+ * an edit inside a method body of a java file only changes copy calls of that file, so results and tables
+ * of other files stay valid and only edited files are searched again. any other change is a structure change
+ * which may change types or hierarchy anywhere, everything computed before it is outdated
+ */
+public class CopyCallChangeTracker implements Disposable {
+
+    // edited files beyond this are not worth tracking one by one
+    private static final int MAX_CHANGED_FILES = 500;
+
+    private volatile long structureModificationCount;
+
+    private final ModificationTracker structureModificationTracker = this::getStructureModificationCount;
+
+    private volatile long editCount;
+
+    // edited file -> edit count of its last edit since the last structure change
+    private final Map<VirtualFile, Long> fileEditCounts = new ConcurrentHashMap<>();
+
+    public CopyCallChangeTracker(Project project) {
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+
+            @Override
+            public void childRemoved(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+
+            @Override
+            public void childReplaced(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+
+            @Override
+            public void childrenChanged(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+
+            @Override
+            public void childMoved(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+
+            @Override
+            public void propertyChanged(PsiTreeChangeEvent event) {
+                onChange(event);
+            }
+        }, this);
+    }
+
+    public static CopyCallChangeTracker getInstance(Project project) {
+        return project.getService(CopyCallChangeTracker.class);
+    }
+
+    /**
+     * @return count of changes which are not edits inside method bodies
+     */
+    public long getStructureModificationCount() {
+        return structureModificationCount;
+    }
+
+    /**
+     * tracker of changes which may change types of expressions in other files, for cached values
+     */
+    public ModificationTracker getStructureModificationTracker() {
+        return structureModificationTracker;
+    }
+
+    /**
+     * @return count of edits inside method bodies, never reset
+     */
+    public long getEditCount() {
+        return editCount;
+    }
+
+    /**
+     * files edited inside method bodies since given edit count, must be called in read action.
+     * meaningful only while structure modification count is the same as when the edit count was taken
+     * @param sinceEditCount edit count taken before
+     * @return edited files
+     */
+    public Set<VirtualFile> getChangedFiles(long sinceEditCount) {
+        Set<VirtualFile> changedFiles = new HashSet<>();
+        fileEditCounts.forEach((file, fileEditCount) -> {
+            if (fileEditCount > sinceEditCount) {
+                changedFiles.add(file);
+            }
+        });
+        return changedFiles;
+    }
+
+    /**
+     * called in write action
+     */
+    private void onChange(PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file != null && !file.isPhysical()) {
+            return;
+        }
+        VirtualFile virtualFile = file != null ? file.getVirtualFile() : null;
+        if (virtualFile != null && isInCodeBlock(file, event.getParent())
+                && (fileEditCounts.containsKey(virtualFile) || fileEditCounts.size() < MAX_CHANGED_FILES)) {
+            fileEditCounts.put(virtualFile, ++editCount);
+            return;
+        }
+        structureModificationCount++;
+        fileEditCounts.clear();
+    }
+
+    private static boolean isInCodeBlock(PsiFile file, PsiElement parent) {
+        return file instanceof PsiJavaFile && parent != null
+                && PsiTreeUtil.getParentOfType(parent, PsiCodeBlock.class, false) != null;
+    }
+
+    @Override
+    public void dispose() {
+        fileEditCounts.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.andyssder.ffind.index;
+
+import java.util.Objects;
+
+/**
+ * a call of configured copy method recorded by {@link CopyCallIndex}
+ */
+public class CopyCallEntry {
+
+    // offset of the method name identifier in the file
+    private final int offset;
+
+    private final int argumentCount;
+
+    public CopyCallEntry(int offset, int argumentCount) {
+        this.offset = offset;
+        this.argumentCount = argumentCount;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CopyCallEntry that)) {
+            return false;
+        }
+        return offset == that.offset && argumentCount == that.argumentCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(offset, argumentCount);
+    }
+
+    @Override
+    public String toString() {
+        return "CopyCallEntry{" +
+                "offset=" + offset +
+                ", argumentCount=" + argumentCount +
+                '}';
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.lang.LighterAST;
+import com.intellij.lang.LighterASTNode;
+import com.intellij.lang.LighterASTTokenNode;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaTokenType;
+import com.intellij.psi.impl.source.JavaLightTreeUtil;
+import com.intellij.psi.impl.source.tree.JavaElementType;
+import com.intellij.psi.impl.source.tree.LightTreeUtil;
+import com.intellij.psi.impl.source.tree.RecursiveLighterASTNodeWalkingVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * index of method calls which may be copy calls: method name -> calls in file.
+ * it doesn't depend on method configs, so configs can change without indexing again
+ */
+public class CopyCallIndex extends FileBasedIndexExtension<String, List<CopyCallEntry>> {
+
+    public static final ID<String, List<CopyCallEntry>> NAME = ID.create("io.github.andyssder.ffind.CopyCallIndex");
+
+    private static final int VERSION = 2;
+
+    // source and target are different arguments, calls with fewer arguments are never copy calls
+    private static final int MIN_ARGUMENT_COUNT = 2;
+
+    private static final DataExternalizer<List<CopyCallEntry>> VALUE_EXTERNALIZER = new DataExternalizer<>() {
+        @Override
+        public void save(@NotNull DataOutput out, List<CopyCallEntry> value) throws IOException {
+            DataInputOutputUtil.writeINT(out, value.size());
+            for (CopyCallEntry entry : value) {
+                DataInputOutputUtil.writeINT(out, entry.getOffset());
+                DataInputOutputUtil.writeINT(out, entry.getArgumentCount());
+            }
+        }
+
+        @Override
+        public List<CopyCallEntry> read(@NotNull DataInput in) throws IOException {
+            int size = DataInputOutputUtil.readINT(in);
+            List<CopyCallEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(new CopyCallEntry(DataInputOutputUtil.readINT(in), DataInputOutputUtil.readINT(in)));
+            }
+            return entries;
+        }
+    };
+
+    /**
+     * return files with calls of given method name ordered by path, must be called in read action.
+     * calls are not loaded, so files can be searched one by one
+     * @param methodName method name in config
+     * @param scope search scope
+     * @return files with calls
+     */
+    public static List<VirtualFile> getFiles(String methodName, GlobalSearchScope scope) {
+        List<VirtualFile> files = new ArrayList<>(FileBasedIndex.getInstance().getContainingFiles(NAME, methodName, scope));
+        files.sort(Comparator.comparing(VirtualFile::getPath));
+        return files;
+    }
+
+    /**
+     * return calls of given method name in given file, must be called in read action
+     * @param methodName method name in config
+     * @return calls in file ordered by offset
+     */
+    public static List<CopyCallEntry> getCallEntries(String methodName, VirtualFile file, Project project) {
+        List<CopyCallEntry> entries = FileBasedIndex.getInstance().getFileData(NAME, file, project).get(methodName);
+        return entries != null ? entries : Collections.emptyList();
+    }
+
+    @Override
+    public @NotNull ID<String, List<CopyCallEntry>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<CopyCallEntry>, FileContent> getIndexer() {
+        return inputData -> {
+            LighterAST tree = ((PsiDependentFileContent) inputData).getLighterAST();
+            Map<String, List<CopyCallEntry>> result = new HashMap<>();
+            new RecursiveLighterASTNodeWalkingVisitor(tree) {
+                @Override
+                public void visitNode(@NotNull LighterASTNode element) {
+                    if (element.getTokenType() == JavaElementType.METHOD_CALL_EXPRESSION) {
+                        addCallEntry(tree, element, result);
+                    }
+                    super.visitNode(element);
+                }
+            }.visitNode(tree.getRoot());
+            return result;
+        };
+    }
+
+    /**
+     * record a method call which may pass source and target, whatever method it calls
+     */
+    private static void addCallEntry(LighterAST tree, LighterASTNode callExpression, Map<String, List<CopyCallEntry>> result) {
+        LighterASTNode methodExpression = LightTreeUtil.firstChildOfType(tree, callExpression, JavaElementType.REFERENCE_EXPRESSION);
+        LighterASTNode argumentList = LightTreeUtil.firstChildOfType(tree, callExpression, JavaElementType.EXPRESSION_LIST);
+        if (methodExpression == null || argumentList == null) {
+            return;
+        }
+        // qualifier is a nested reference, the direct identifier child is the method name
+        LighterASTNode nameElement = LightTreeUtil.firstChildOfType(tree, methodExpression, JavaTokenType.IDENTIFIER);
+        if (!(nameElement instanceof LighterASTTokenNode nameToken)) {
+            return;
+        }
+        int argumentCount = JavaLightTreeUtil.getExpressionChildren(tree, argumentList).size();
+        if (argumentCount < MIN_ARGUMENT_COUNT) {
+            return;
+        }
+        result.computeIfAbsent(nameToken.getText().toString(), k -> new ArrayList<>())
+                .add(new CopyCallEntry(nameElement.getStartOffset(), argumentCount));
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<CopyCallEntry>> getValueExternalizer() {
+        return VALUE_EXTERNALIZER;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public @NotNull FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
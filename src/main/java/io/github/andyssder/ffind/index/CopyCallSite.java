@@ -0,0 +1,214 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.*;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.util.PsiUtil;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.psi.util.TypeConversionUtil;
+import io.github.andyssder.ffind.model.MethodConfig;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a resolved copy method call with erased type of its source and target argument.
+ * the call is kept as file and range, so call sites of the whole project don't keep psi trees alive
+ */
+public class CopyCallSite {
+
+    // argument without type, map of type names can't hold null
+    private static final String NO_TYPE = "";
+
+    // max nesting of arrays and constants followed for property names
+    private static final int MAX_CONSTANT_DEPTH = 5;
+
+    private final VirtualFile file;
+
+    private final TextRange callRange;
+
+    // psi modification stamp of the file, the range is found again only in the same file content
+    private final long fileModificationStamp;
+
+    private final MethodConfig methodConfig;
+
+    private final String sourceType;
+
+    private final String targetType;
+
+    // names passed as include/exclude property params, null if config has no such param
+    private final Set<String> propertyNames;
+
+    private CopyCallSite(PsiMethodCallExpression callExpression, MethodConfig methodConfig,
+                         PsiExpression sourceArg, PsiExpression targetArg) {
+        PsiFile psiFile = callExpression.getContainingFile();
+        this.file = PsiUtilCore.getVirtualFile(callExpression);
+        this.callRange = callExpression.getTextRange();
+        this.fileModificationStamp = psiFile != null ? psiFile.getModificationStamp() : -1;
+        this.methodConfig = methodConfig;
+        this.sourceType = getErasedTypeName(sourceArg);
+        this.targetType = getErasedTypeName(targetArg);
+        this.propertyNames = methodConfig.getIncludeFieldParamEnable() || methodConfig.getExcludeFiledParamEnable()
+                ? getPropertyNames(callExpression, methodConfig) : null;
+    }
+
+    /**
+     * create call site for given call of copy method, must be called in read action
+     * @param callExpression call of copy method
+     * @param methodConfig config of copy method
+     * @return call site or null if call doesn't have source and target argument
+     */
+    public static CopyCallSite create(PsiMethodCallExpression callExpression, MethodConfig methodConfig) {
+        PsiExpression[] args = callExpression.getArgumentList().getExpressions();
+        int sourceParamIndex = methodConfig.getSourceParamIndex();
+        int targetParamIndex = methodConfig.getTargetParamIndex();
+        if (sourceParamIndex < 0 || targetParamIndex < 0 || args.length <= Math.max(sourceParamIndex, targetParamIndex)) {
+            return null;
+        }
+        return new CopyCallSite(callExpression, methodConfig, args[sourceParamIndex], args[targetParamIndex]);
+    }
+
+    /**
+     * property names passed to the last param of copy method and the arguments after it (varargs)
+     */
+    private static Set<String> getPropertyNames(PsiMethodCallExpression callExpression, MethodConfig methodConfig) {
+        Set<String> result = new HashSet<>();
+        PsiExpression[] args = callExpression.getArgumentList().getExpressions();
+        for (int i = Math.max(methodConfig.getParamNames().size() - 1, 0); i < args.length; i++) {
+            collectPropertyNames(args[i], result, 0);
+        }
+        return result;
+    }
+
+    /**
+     * collect names of string constants, array initializers and static final arrays.
+     * other expressions are taken by their text like before, e.g. a local variable named as the property
+     */
+    private static void collectPropertyNames(PsiExpression expression, Set<String> result, int depth) {
+        if (depth > MAX_CONSTANT_DEPTH) {
+            return;
+        }
+        PsiExpression arg = PsiUtil.skipParenthesizedExprDown(expression);
+        if (arg == null) {
+            return;
+        }
+        PsiArrayInitializerExpression arrayInitializer = arg instanceof PsiNewExpression newExpression
+                ? newExpression.getArrayInitializer()
+                : arg instanceof PsiArrayInitializerExpression initializer ? initializer : null;
+        if (arrayInitializer != null) {
+            for (PsiExpression initializer : arrayInitializer.getInitializers()) {
+                collectPropertyNames(initializer, result, depth + 1);
+            }
+            return;
+        }
+        Object constant = JavaPsiFacade.getInstance(arg.getProject()).getConstantEvaluationHelper().computeConstantExpression(arg);
+        if (constant instanceof String name) {
+            result.add(name);
+            return;
+        }
+        if (arg instanceof PsiReferenceExpression reference && reference.resolve() instanceof PsiField field
+                && field.hasModifierProperty(PsiModifier.STATIC) && field.hasModifierProperty(PsiModifier.FINAL)
+                && field.getType() instanceof PsiArrayType && field.getInitializer() != null) {
+            collectPropertyNames(field.getInitializer(), result, depth + 1);
+            return;
+        }
+        result.add(StringUtil.unquoteString(arg.getText()));
+    }
+
+    /**
+     * erased type of argument, inferred once while its file and declarations of other files don't change
+     */
+    private static String getErasedTypeName(PsiExpression expression) {
+        PsiFile file = expression.getContainingFile();
+        if (file == null) {
+            return inferErasedTypeName(expression);
+        }
+        String typeName = getErasedTypeNames(file).computeIfAbsent(expression, CopyCallSite::inferErasedTypeName);
+        return NO_TYPE.equals(typeName) ? null : typeName;
+    }
+
+    private static String inferErasedTypeName(PsiExpression expression) {
+        PsiType type = expression.getType();
+        if (type == null) {
+            return NO_TYPE;
+        }
+        return TypeConversionUtil.erasure(type).getCanonicalText();
+    }
+
+    /**
+     * erased type names of copy call arguments in a file, dropped when the file, project roots or structure change.
+     * an argument type may come from a declaration in another file, e.g. return type of a called method
+     */
+    private static Map<PsiExpression, String> getErasedTypeNames(PsiFile file) {
+        Project project = file.getProject();
+        return CachedValuesManager.getCachedValue(file, () -> CachedValueProvider.Result.create(
+                new ConcurrentHashMap<>(), file, ProjectRootModificationTracker.getInstance(project),
+                CopyCallChangeTracker.getInstance(project).getStructureModificationTracker()));
+    }
+
+    /**
+     * @param classNames qualified names of classes
+     * @return true if any of given classes is used as source or target
+     */
+    public boolean isUsingAny(Set<String> classNames) {
+        return classNames.contains(sourceType) || classNames.contains(targetType);
+    }
+
+    /**
+     * find the call again, must be called in read action
+     * @return call or null if its file has changed since the call site was created
+     */
+    public PsiMethodCallExpression findCallExpression(Project project) {
+        if (file == null || !file.isValid()) {
+            return null;
+        }
+        PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+        if (psiFile == null || psiFile.getModificationStamp() != fileModificationStamp) {
+            return null;
+        }
+        return PsiTreeUtil.findElementOfClassAtRange(psiFile, callRange.getStartOffset(), callRange.getEndOffset(),
+                PsiMethodCallExpression.class);
+    }
+
+    /**
+     * @return source argument of given call found by {@link #findCallExpression(Project)}
+     */
+    public PsiExpression getSourceArg(PsiMethodCallExpression callExpression) {
+        return callExpression.getArgumentList().getExpressions()[methodConfig.getSourceParamIndex()];
+    }
+
+    /**
+     * @return target argument of given call found by {@link #findCallExpression(Project)}
+     */
+    public PsiExpression getTargetArg(PsiMethodCallExpression callExpression) {
+        return callExpression.getArgumentList().getExpressions()[methodConfig.getTargetParamIndex()];
+    }
+
+    public VirtualFile getFile() {
+        return file;
+    }
+
+    public MethodConfig getMethodConfig() {
+        return methodConfig;
+    }
+
+    public String getSourceType() {
+        return sourceType;
+    }
+
+    public String getTargetType() {
+        return targetType;
+    }
+
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+}
@@ -0,0 +1,345 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import io.github.andyssder.ffind.common.ReadActionUtil;
+import io.github.andyssder.ffind.detector.CopyMethodReferenceDetector;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.model.MethodConfigLookup;
+import io.github.andyssder.ffind.model.state.GeneralSetting;
+import io.github.andyssder.ffind.model.state.MethodConfigSetting;
+
+import java.util.*;
+import java.util.function.DoubleConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * inverted index of copy calls: erased class name of source/target argument -> copy calls.
+ * the table is filled by the first search over all scope which runs to the end,
+ * searches before that stream call sites directly from the call index.
+ * when method configs change, calls of removed configs are dropped and only added configs are searched again.
+ * when only method bodies are edited, calls of edited files are dropped and those files are searched again
+ */
+public class CopyCallSiteTable {
+
+    private final Project project;
+
+    private volatile Snapshot snapshot;
+
+    public CopyCallSiteTable(Project project) {
+        this.project = project;
+    }
+
+    public static CopyCallSiteTable getInstance(Project project) {
+        return project.getService(CopyCallSiteTable.class);
+    }
+
+    /**
+     * pass copy calls in given scope which use any of given classes as source or target to processor, each call once.
+     * wide scopes and scopes searched after the table is filled are answered by the table,
+     * other scopes are searched by themselves without filling the table.
+     * files are searched in separate read actions, processor is called out of read action
+     * @param classNames qualified names of classes
+     * @param scope scope of calls, null for all scope
+     * @param processor returns false to stop
+     * @return false if processor stopped the search
+     */
+    public boolean processCallSites(Set<String> classNames, GlobalSearchScope scope, Processor<? super CopyCallSite> processor) {
+        List<MethodConfig> methodConfigs = MethodConfigSetting.getInstance().getMethodConfigs();
+        Snapshot current = getSnapshot(methodConfigs);
+        if (current != null) {
+            // a call may use two of the classes as source and target
+            Set<CopyCallSite> processed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String className : classNames) {
+                for (CopyCallSite callSite : current.getCallSites(className)) {
+                    if (isInScope(callSite, scope) && processed.add(callSite) && !processor.process(callSite)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        boolean wide = scope == null || isWideScope(scope);
+        // changes during the search make the filled table outdated at once
+        long[] modificationCounts = ReadActionUtil.compute(() -> getModificationCounts(project));
+        Map<String, List<CopyCallSite>> callSites = new HashMap<>();
+        boolean completed = processAllCallSites(methodConfigs, wide ? GlobalSearchScope.allScope(project) : scope, getSearchParallelism(), callSite -> {
+            if (wide) {
+                addCallSite(callSites, callSite);
+            }
+            if (callSite.isUsingAny(classNames) && isInScope(callSite, scope)) {
+                return processor.process(callSite);
+            }
+            return true;
+        });
+        if (completed && wide) {
+            snapshot = new Snapshot(callSites, modificationCounts, methodConfigs);
+        }
+        return completed;
+    }
+
+    /**
+     * fill the table over all scope if it is not up to date, files are searched one by one.
+     * a stopped warm up leaves the table as it was
+     */
+    public void warmUp() {
+        List<MethodConfig> methodConfigs = MethodConfigSetting.getInstance().getMethodConfigs();
+        if (getSnapshot(methodConfigs) != null) {
+            return;
+        }
+        long[] modificationCounts = ReadActionUtil.compute(() -> getModificationCounts(project));
+        Map<String, List<CopyCallSite>> callSites = new HashMap<>();
+        boolean completed = processAllCallSites(methodConfigs, GlobalSearchScope.allScope(project), 1, callSite -> {
+            addCallSite(callSites, callSite);
+            return true;
+        });
+        if (completed) {
+            snapshot = new Snapshot(callSites, modificationCounts, methodConfigs);
+        }
+    }
+
+    /**
+     * erased class names of source and target arguments in calls of given configs over all scope
+     * @return class names or null if the search was stopped
+     */
+    public Set<String> getArgumentTypes(List<MethodConfig> methodConfigs) {
+        Set<String> argumentTypes = new HashSet<>();
+        for (List<MethodConfig> group : MethodConfigLookup.groupByMethod(methodConfigs)) {
+            boolean completed = CopyMethodReferenceDetector.processMethodCalls(project, group, GlobalSearchScope.allScope(project),
+                    1, fraction -> {}, (methodConfig, callExpression) -> CopyCallSite.create(callExpression, methodConfig), callSite -> {
+                        addCallSite(argumentTypes, callSite);
+                        return true;
+                    });
+            if (!completed) {
+                return null;
+            }
+        }
+        return argumentTypes;
+    }
+
+    /**
+     * @return table for given configs or null if structure or roots changed since the table was filled
+     */
+    private Snapshot getSnapshot(List<MethodConfig> methodConfigs) {
+        Snapshot current = getPatchedSnapshot();
+        if (current == null) {
+            return null;
+        }
+        if (current.methodConfigs == methodConfigs) {
+            return current;
+        }
+        Snapshot updated = current.update(methodConfigs);
+        if (updated != null) {
+            snapshot = updated;
+        }
+        return updated;
+    }
+
+    /**
+     * @return table with calls of files edited since it was filled searched again,
+     * or null if structure or roots changed or the search was stopped
+     */
+    private Snapshot getPatchedSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        // counts and edited files are taken together, files edited after are patched next time
+        Pair<long[], Set<VirtualFile>> changes = ReadActionUtil.compute(() -> {
+            long[] modificationCounts = getModificationCounts(project);
+            return current.isSameStructure(modificationCounts)
+                    ? Pair.create(modificationCounts, CopyCallChangeTracker.getInstance(project).getChangedFiles(current.getEditCount()))
+                    : null;
+        });
+        if (changes == null) {
+            return null;
+        }
+        if (changes.second.isEmpty()) {
+            return current;
+        }
+        Snapshot patched = current.patch(changes.second, changes.first);
+        if (patched != null) {
+            snapshot = patched;
+        }
+        return patched;
+    }
+
+    /**
+     * scopes which fill the whole table when searched, their results are only filtered from results of all scope
+     */
+    public boolean isWideScope(GlobalSearchScope scope) {
+        return scope.equals(GlobalSearchScope.allScope(project)) || scope.equals(GlobalSearchScope.projectScope(project));
+    }
+
+    private static boolean isInScope(CopyCallSite callSite, GlobalSearchScope scope) {
+        if (scope == null) {
+            return true;
+        }
+        VirtualFile file = callSite.getFile();
+        return file != null && scope.contains(file);
+    }
+
+    /**
+     * search call sites of all method configs, reports fraction of configs and files searched to current progress indicator
+     */
+    private boolean processAllCallSites(List<MethodConfig> methodConfigs, GlobalSearchScope scope, int parallelism,
+                                        Processor<CopyCallSite> processor) {
+        List<List<MethodConfig>> groups = MethodConfigLookup.of(methodConfigs).getGroups();
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+        if (indicator != null) {
+            indicator.setIndeterminate(false);
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            int searchedGroupCount = i;
+            DoubleConsumer progress = fraction -> {
+                if (indicator != null) {
+                    indicator.setFraction((searchedGroupCount + fraction) / groups.size());
+                }
+            };
+            boolean completed = CopyMethodReferenceDetector.processMethodCalls(project, groups.get(i), scope, parallelism, progress,
+                    (methodConfig, callExpression) -> CopyCallSite.create(callExpression, methodConfig), processor);
+            if (!completed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return number of threads searching files, 1 if parallel search is disabled
+     */
+    private static int getSearchParallelism() {
+        GeneralConfig generalConfig = GeneralSetting.getInstance().getGeneralConfig();
+        if (generalConfig == null || !Boolean.TRUE.equals(generalConfig.getParallelSearchEnable())
+                || generalConfig.getSearchParallelism() == null) {
+            return 1;
+        }
+        return Math.max(1, generalConfig.getSearchParallelism());
+    }
+
+    private static void addCallSite(Set<String> argumentTypes, CopyCallSite callSite) {
+        if (callSite.getSourceType() != null) {
+            argumentTypes.add(callSite.getSourceType());
+        }
+        if (callSite.getTargetType() != null) {
+            argumentTypes.add(callSite.getTargetType());
+        }
+    }
+
+    private static void addCallSite(Map<String, List<CopyCallSite>> result, CopyCallSite callSite) {
+        if (callSite.getSourceType() != null) {
+            result.computeIfAbsent(callSite.getSourceType(), k -> new ArrayList<>()).add(callSite);
+        }
+        if (callSite.getTargetType() != null && !callSite.getTargetType().equals(callSite.getSourceType())) {
+            result.computeIfAbsent(callSite.getTargetType(), k -> new ArrayList<>()).add(callSite);
+        }
+    }
+
+    /**
+     * filled table of a config list, valid until structure or project roots change
+     */
+    private class Snapshot {
+        private final Map<String, List<CopyCallSite>> callSites;
+        private final long[] modificationCounts;
+        private final List<MethodConfig> methodConfigs;
+
+        Snapshot(Map<String, List<CopyCallSite>> callSites, long[] modificationCounts, List<MethodConfig> methodConfigs) {
+            this.callSites = callSites;
+            this.modificationCounts = modificationCounts;
+            this.methodConfigs = methodConfigs;
+        }
+
+        List<CopyCallSite> getCallSites(String className) {
+            return callSites.getOrDefault(className, Collections.emptyList());
+        }
+
+        /**
+         * @return true if structure and roots are the same as given counts, files may have been edited
+         */
+        boolean isSameStructure(long[] counts) {
+            return modificationCounts[0] == counts[0] && modificationCounts[1] == counts[1];
+        }
+
+        long getEditCount() {
+            return modificationCounts[2];
+        }
+
+        /**
+         * table of new configs, calls of configs still in settings are kept and added configs are searched
+         * @return new table or null if the search was stopped
+         */
+        Snapshot update(List<MethodConfig> newConfigs) {
+            Set<MethodConfig> keptConfigs = new HashSet<>(newConfigs);
+            keptConfigs.retainAll(methodConfigs);
+            Map<String, List<CopyCallSite>> result = new HashMap<>();
+            callSites.forEach((className, classCallSites) -> {
+                List<CopyCallSite> keptCallSites = classCallSites.stream()
+                        .filter(callSite -> keptConfigs.contains(callSite.getMethodConfig()))
+                        .collect(Collectors.toCollection(ArrayList::new));
+                if (!keptCallSites.isEmpty()) {
+                    result.put(className, keptCallSites);
+                }
+            });
+
+            List<MethodConfig> addedConfigs = newConfigs.stream().filter(config -> !keptConfigs.contains(config)).toList();
+            for (List<MethodConfig> group : MethodConfigLookup.groupByMethod(addedConfigs)) {
+                boolean completed = CopyMethodReferenceDetector.processMethodCalls(project, group, GlobalSearchScope.allScope(project),
+                        getSearchParallelism(), fraction -> {}, (methodConfig, callExpression) -> CopyCallSite.create(callExpression, methodConfig),
+                        callSite -> {
+                            addCallSite(result, callSite);
+                            return true;
+                        });
+                if (!completed) {
+                    return null;
+                }
+            }
+            // calls found now belong to the table only if nothing changed since it was filled
+            return new Snapshot(result, modificationCounts, newConfigs);
+        }
+
+        /**
+         * table after given files were edited, calls of the files are dropped and the files are searched again
+         * @param newModificationCounts counts taken together with edited files
+         * @return new table or null if the search was stopped
+         */
+        Snapshot patch(Set<VirtualFile> changedFiles, long[] newModificationCounts) {
+            Map<String, List<CopyCallSite>> result = new HashMap<>();
+            callSites.forEach((className, classCallSites) -> {
+                List<CopyCallSite> keptCallSites = classCallSites.stream()
+                        .filter(callSite -> !changedFiles.contains(callSite.getFile()))
+                        .collect(Collectors.toCollection(ArrayList::new));
+                if (!keptCallSites.isEmpty()) {
+                    result.put(className, keptCallSites);
+                }
+            });
+
+            GlobalSearchScope changedScope = ReadActionUtil.compute(() -> GlobalSearchScope.filesScope(project,
+                    changedFiles.stream().filter(VirtualFile::isValid).toList()));
+            boolean completed = processAllCallSites(methodConfigs, changedScope, 1, callSite -> {
+                addCallSite(result, callSite);
+                return true;
+            });
+            return completed ? new Snapshot(result, newModificationCounts, methodConfigs) : null;
+        }
+    }
+
+    /**
+     * @return counts of structure modification, roots modification and edits inside method bodies
+     */
+    private static long[] getModificationCounts(Project project) {
+        CopyCallChangeTracker changeTracker = CopyCallChangeTracker.getInstance(project);
+        return new long[]{
+                changeTracker.getStructureModificationCount(),
+                ProjectRootModificationTracker.getInstance(project).getModificationCount(),
+                changeTracker.getEditCount()
+        };
+    }
+}
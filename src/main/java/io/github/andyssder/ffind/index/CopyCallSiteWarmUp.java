@@ -0,0 +1,124 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.ide.PowerSaveMode;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.IndexNotReadyException;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.state.GeneralSetting;
+import io.github.andyssder.ffind.model.state.SettingsChangeListener;
+import org.jetbrains.annotations.TestOnly;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * fill copy call site table in background after project is opened or indexed, so the first search is fast.
+ * runs in one thread after a delay, searches files in read actions which yield to typing,
+ * and is canceled when indexing starts or the project is closed
+ */
+public class CopyCallSiteWarmUp implements Disposable {
+
+    // wait for other work after indexing to settle
+    private static final long WARM_UP_DELAY_SECONDS = 10;
+
+    private final Project project;
+
+    private final ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("FindInCopy Warm Up", 1);
+
+    // indicator of the scheduled or running warm up, guarded by this
+    private ProgressIndicator indicator;
+
+    public CopyCallSiteWarmUp(Project project) {
+        this.project = project;
+        project.getMessageBus().connect(this).subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+            @Override
+            public void enterDumbMode() {
+                cancel();
+            }
+
+            @Override
+            public void exitDumbMode() {
+                schedule();
+            }
+        });
+        project.getMessageBus().connect(this).subscribe(SettingsChangeListener.TOPIC, new SettingsChangeListener() {
+            @Override
+            public void generalConfigChanged(GeneralConfig oldConfig, GeneralConfig newConfig) {
+                // other general options don't need the table again
+                if (isWarmUpEnable(oldConfig) == isWarmUpEnable(newConfig)) {
+                    return;
+                }
+                if (isWarmUpEnable(newConfig)) {
+                    schedule();
+                } else {
+                    cancel();
+                }
+            }
+        });
+    }
+
+    public static CopyCallSiteWarmUp getInstance(Project project) {
+        return project.getService(CopyCallSiteWarmUp.class);
+    }
+
+    /**
+     * warm up when project is smart, a scheduled or running warm up is canceled
+     */
+    public void schedule() {
+        if (!isWarmUpEnable(GeneralSetting.getInstance().getGeneralConfig())) {
+            return;
+        }
+        ProgressIndicator newIndicator = new EmptyProgressIndicator();
+        synchronized (this) {
+            if (indicator != null) {
+                indicator.cancel();
+            }
+            indicator = newIndicator;
+        }
+        DumbService.getInstance(project).runWhenSmart(() -> AppExecutorUtil.getAppScheduledExecutorService().schedule(
+                () -> executor.execute(() -> warmUp(newIndicator)), WARM_UP_DELAY_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private void warmUp(ProgressIndicator indicator) {
+        if (indicator.isCanceled() || project.isDisposed() || PowerSaveMode.isEnabled()
+                || DumbService.getInstance(project).isDumb()) {
+            return;
+        }
+        try {
+            ProgressManager.getInstance().runProcess(() -> CopyCallSiteTable.getInstance(project).warmUp(), indicator);
+        } catch (ProcessCanceledException | IndexNotReadyException e) {
+            // warmed up again when project is smart, or searched by the first find
+        }
+    }
+
+    private synchronized void cancel() {
+        if (indicator != null) {
+            indicator.cancel();
+            indicator = null;
+        }
+    }
+
+    /**
+     * @return indicator of the scheduled or running warm up, null when none
+     */
+    @TestOnly
+    synchronized ProgressIndicator getIndicator() {
+        return indicator;
+    }
+
+    private static boolean isWarmUpEnable(GeneralConfig generalConfig) {
+        return generalConfig != null && Boolean.TRUE.equals(generalConfig.getWarmUpEnable());
+    }
+
+    @Override
+    public void dispose() {
+        cancel();
+    }
+}
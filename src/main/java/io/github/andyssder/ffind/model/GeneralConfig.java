@@ -4,19 +4,25 @@ import java.io.Serializable;
 
 public class GeneralConfig implements Serializable {
 
-    private Long cacheTime = 0L;
+    public static final int DEFAULT_MAX_CACHE_ENTRIES = 1000;
+
+    public static final int DEFAULT_MAX_CACHE_USAGES = 20000;
+
+    public static final int DEFAULT_SEARCH_PARALLELISM = Runtime.getRuntime().availableProcessors();
 
     private Boolean cacheEnable = false;
 
-    public GeneralConfig() {}
+    private Integer maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
 
-    public Long getCacheTime() {
-        return cacheTime;
-    }
+    private Integer maxCacheUsages = DEFAULT_MAX_CACHE_USAGES;
 
-    public void setCacheTime(Long cacheTime) {
-        this.cacheTime = cacheTime;
-    }
+    private Boolean parallelSearchEnable = false;
+
+    private Integer searchParallelism = DEFAULT_SEARCH_PARALLELISM;
+
+    private Boolean warmUpEnable = false;
+
+    public GeneralConfig() {}
 
     public Boolean getCacheEnable() {
         return cacheEnable;
@@ -25,4 +31,44 @@ public class GeneralConfig implements Serializable {
     public void setCacheEnable(Boolean cacheEnable) {
         this.cacheEnable = cacheEnable;
     }
+
+    public Integer getMaxCacheEntries() {
+        return maxCacheEntries;
+    }
+
+    public void setMaxCacheEntries(Integer maxCacheEntries) {
+        this.maxCacheEntries = maxCacheEntries;
+    }
+
+    public Integer getMaxCacheUsages() {
+        return maxCacheUsages;
+    }
+
+    public void setMaxCacheUsages(Integer maxCacheUsages) {
+        this.maxCacheUsages = maxCacheUsages;
+    }
+
+    public Boolean getParallelSearchEnable() {
+        return parallelSearchEnable;
+    }
+
+    public void setParallelSearchEnable(Boolean parallelSearchEnable) {
+        this.parallelSearchEnable = parallelSearchEnable;
+    }
+
+    public Integer getSearchParallelism() {
+        return searchParallelism;
+    }
+
+    public void setSearchParallelism(Integer searchParallelism) {
+        this.searchParallelism = searchParallelism;
+    }
+
+    public Boolean getWarmUpEnable() {
+        return warmUpEnable;
+    }
+
+    public void setWarmUpEnable(Boolean warmUpEnable) {
+        this.warmUpEnable = warmUpEnable;
+    }
 }
@@ -1,13 +1,17 @@
 package io.github.andyssder.ffind.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class MethodConfig implements Serializable {
 
     private String className;
     private String methodName;
     private List<String> paramNames;
+    // erased parameter types, preferred over names when set
+    private List<String> paramTypes;
     private int sourceParamIndex;
     private int targetParamIndex;
     private boolean includeFieldParamEnable;
@@ -28,6 +32,20 @@ public class MethodConfig implements Serializable {
         this.includeFieldParamEnable = includeFieldParamEnable;
     }
 
+    /**
+     * copy of given config with its own lists, so editing the copy never changes configs in use
+     */
+    public MethodConfig(MethodConfig other) {
+        this.className = other.className;
+        this.methodName = other.methodName;
+        this.paramNames = other.paramNames != null ? new ArrayList<>(other.paramNames) : null;
+        this.paramTypes = other.paramTypes != null ? new ArrayList<>(other.paramTypes) : null;
+        this.sourceParamIndex = other.sourceParamIndex;
+        this.targetParamIndex = other.targetParamIndex;
+        this.includeFieldParamEnable = other.includeFieldParamEnable;
+        this.excludeFiledParamEnable = other.excludeFiledParamEnable;
+    }
+
     public String getClassName() {
         return className;
     }
@@ -52,6 +70,14 @@ public class MethodConfig implements Serializable {
         this.paramNames = paramNames;
     }
 
+    public List<String> getParamTypes() {
+        return paramTypes;
+    }
+
+    public void setParamTypes(List<String> paramTypes) {
+        this.paramTypes = paramTypes;
+    }
+
     public int getSourceParamIndex() {
         return sourceParamIndex;
     }
@@ -84,12 +110,37 @@ public class MethodConfig implements Serializable {
         this.excludeFiledParamEnable = excludeFiledParamEnable;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MethodConfig that)) {
+            return false;
+        }
+        return sourceParamIndex == that.sourceParamIndex
+                && targetParamIndex == that.targetParamIndex
+                && includeFieldParamEnable == that.includeFieldParamEnable
+                && excludeFiledParamEnable == that.excludeFiledParamEnable
+                && Objects.equals(className, that.className)
+                && Objects.equals(methodName, that.methodName)
+                && Objects.equals(paramNames, that.paramNames)
+                && Objects.equals(paramTypes, that.paramTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(className, methodName, paramNames, paramTypes, sourceParamIndex, targetParamIndex,
+                includeFieldParamEnable, excludeFiledParamEnable);
+    }
+
     @Override
     public String toString() {
         return "MethodConfig{" +
                 "className='" + className + '\'' +
                 ", methodName='" + methodName + '\'' +
                 ", paramNameList=" + paramNames +
+                ", paramTypeList=" + paramTypes +
                 ", sourceParamIndex=" + sourceParamIndex +
                 ", targetParamIndex=" + targetParamIndex +
                 ", includeFieldParamIndex=" + includeFieldParamEnable +
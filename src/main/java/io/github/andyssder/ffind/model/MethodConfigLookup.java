@@ -0,0 +1,58 @@
+package io.github.andyssder.ffind.model;
+
+import java.util.*;
+
+/**
+ * method configs grouped by class name and method name.
+ * built once for a config list, the last built lookup is reused while settings return the same list
+ */
+public class MethodConfigLookup {
+
+    private static volatile MethodConfigLookup lastLookup;
+
+    private final List<MethodConfig> methodConfigs;
+
+    private final List<List<MethodConfig>> groups;
+
+    private MethodConfigLookup(List<MethodConfig> methodConfigs) {
+        this.methodConfigs = methodConfigs;
+        // "class name#method name" -> configs in setting order
+        Map<String, List<MethodConfig>> configsByMethod = new LinkedHashMap<>();
+        for (MethodConfig methodConfig : methodConfigs) {
+            configsByMethod.computeIfAbsent(methodConfig.getClassName() + "#" + methodConfig.getMethodName(),
+                    k -> new ArrayList<>()).add(methodConfig);
+        }
+        this.groups = configsByMethod.values().stream().map(Collections::unmodifiableList).toList();
+    }
+
+    /**
+     * return lookup of given configs, built again only when configs are not the list of last lookup
+     * @param methodConfigs user configs, must not be changed after
+     * @return lookup of configs
+     */
+    public static MethodConfigLookup of(List<MethodConfig> methodConfigs) {
+        MethodConfigLookup lookup = lastLookup;
+        if (lookup != null && lookup.methodConfigs == methodConfigs) {
+            return lookup;
+        }
+        lookup = new MethodConfigLookup(methodConfigs);
+        lastLookup = lookup;
+        return lookup;
+    }
+
+    /**
+     * group given configs by class name and method name without touching the last lookup
+     * @return groups in order of their first config
+     */
+    public static List<List<MethodConfig>> groupByMethod(List<MethodConfig> methodConfigs) {
+        return new MethodConfigLookup(methodConfigs).getGroups();
+    }
+
+    /**
+     * configs grouped by class name and method name, configs of one group can be found by one search
+     * @return groups in order of their first config
+     */
+    public List<List<MethodConfig>> getGroups() {
+        return groups;
+    }
+}
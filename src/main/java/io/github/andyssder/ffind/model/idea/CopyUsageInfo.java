@@ -1,6 +1,8 @@
 package io.github.andyssder.ffind.model.idea;
 
 import io.github.andyssder.ffind.common.ReferenceType;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiReference;
 import com.intellij.usageView.UsageInfo;
 
@@ -14,6 +16,11 @@ public class CopyUsageInfo extends UsageInfo {
         this.type = type;
     }
 
+    public CopyUsageInfo(PsiElement element, TextRange rangeInElement, ReferenceType type) {
+        super(element, rangeInElement.getStartOffset(), rangeInElement.getEndOffset());
+        this.type = type;
+    }
+
     public ReferenceType getType() {
         return type;
     }
@@ -26,7 +26,11 @@ public class GeneralSetting implements PersistentStateComponent<GeneralSetting.S
     private static GeneralConfig getDefaultConfig() {
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(true);
-        generalConfig.setCacheTime(60 * 1000L);
+        generalConfig.setMaxCacheEntries(GeneralConfig.DEFAULT_MAX_CACHE_ENTRIES);
+        generalConfig.setMaxCacheUsages(GeneralConfig.DEFAULT_MAX_CACHE_USAGES);
+        generalConfig.setParallelSearchEnable(false);
+        generalConfig.setSearchParallelism(GeneralConfig.DEFAULT_SEARCH_PARALLELISM);
+        generalConfig.setWarmUpEnable(false);
         return generalConfig;
     }
 
@@ -35,7 +39,14 @@ public class GeneralSetting implements PersistentStateComponent<GeneralSetting.S
     }
 
     public void setGeneralConfig(GeneralConfig generalConfig) {
+        GeneralConfig oldConfig = state.generalConfig;
         state.generalConfig = generalConfig;
+        publishChange(oldConfig, generalConfig);
+    }
+
+    private static void publishChange(GeneralConfig oldConfig, GeneralConfig newConfig) {
+        ApplicationManager.getApplication().getMessageBus().syncPublisher(SettingsChangeListener.TOPIC)
+                .generalConfigChanged(oldConfig, newConfig);
     }
 
     @Override
@@ -45,7 +56,9 @@ public class GeneralSetting implements PersistentStateComponent<GeneralSetting.S
 
     @Override
     public void loadState(@NotNull GeneralSetting.State state) {
+        GeneralConfig oldConfig = this.state.generalConfig;
         this.state = state;
+        publishChange(oldConfig, state.generalConfig);
     }
 
 }
\ No newline at end of file
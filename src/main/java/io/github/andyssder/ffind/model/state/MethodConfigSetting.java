@@ -1,6 +1,7 @@
 package io.github.andyssder.ffind.model.state;
 
 import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.model.MethodConfigLookup;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.components.*;
@@ -15,6 +16,9 @@ import java.util.List;
 public class MethodConfigSetting implements PersistentStateComponent<MethodConfigSetting.State> {
     private State state = new State();
 
+    // unmodifiable copy of configs in state, replaced when configs change
+    private volatile List<MethodConfig> methodConfigs;
+
     public static MethodConfigSetting getInstance() {
         return ApplicationManager.getApplication().getService(MethodConfigSetting.class);
     }
@@ -31,55 +35,110 @@ public class MethodConfigSetting implements PersistentStateComponent<MethodConfi
 
     private static List<MethodConfig> getDefaultConfig() {
         List<MethodConfig> list = new ArrayList<>();
-        list.add(new MethodConfig(
-                "org.springframework.beans.BeanUtils",
-                "copyProperties",
+        list.add(createSpringConfig(
                 Lists.newArrayList("source", "target"),
-                0,
-                1,
-                false,
+                Lists.newArrayList("java.lang.Object", "java.lang.Object"),
                 false
         ));
-        list.add(new MethodConfig(
-                "org.springframework.beans.BeanUtils",
-                "copyProperties",
+        list.add(createSpringConfig(
                 Lists.newArrayList("source", "target", "editable"),
-                0,
-                1,
-                false,
+                Lists.newArrayList("java.lang.Object", "java.lang.Object", "java.lang.Class"),
                 false
         ));
-        list.add(new MethodConfig(
-                "org.springframework.beans.BeanUtils",
-                "copyProperties",
+        list.add(createSpringConfig(
                 Lists.newArrayList("source", "target", "ignoreProperties"),
-                0,
-                1,
-                true,
-                false
+                Lists.newArrayList("java.lang.Object", "java.lang.Object", "java.lang.String[]"),
+                true
         ));
-        list.add(new MethodConfig(
+        list.add(createSpringConfig(
+                Lists.newArrayList("source", "target", "editable", "ignoreProperties"),
+                Lists.newArrayList("java.lang.Object", "java.lang.Object", "java.lang.Class", "java.lang.String[]"),
+                true
+        ));
+        return list;
+    }
+
+    private static MethodConfig createSpringConfig(List<String> paramNames, List<String> paramTypes, boolean excludeFiledParamEnable) {
+        MethodConfig methodConfig = new MethodConfig(
                 "org.springframework.beans.BeanUtils",
                 "copyProperties",
-                Lists.newArrayList("source", "target", "editable", "ignoreProperties"),
+                paramNames,
                 0,
                 1,
-                true,
+                excludeFiledParamEnable,
                 false
-        ));
-        return list;
+        );
+        methodConfig.setParamTypes(paramTypes);
+        return methodConfig;
     }
 
+    /**
+     * @return the same list until configs change, see {@link MethodConfigLookup#of(List)}
+     */
     public List<MethodConfig> getMethodConfigs() {
-        return Collections.unmodifiableList(state.methodConfigs);
+        List<MethodConfig> current = methodConfigs;
+        if (current == null) {
+            current = compileMethodConfigs();
+        }
+        return current;
     }
 
     public void setMethodConfigs(List<MethodConfig> methodConfigs) {
-        state.methodConfigs = methodConfigs;
+        state.methodConfigs = copyOf(methodConfigs);
+        onMethodConfigsChanged();
     }
 
     public void addMethodConfig(MethodConfig methodConfig) {
-        state.methodConfigs.add(methodConfig);
+        state.methodConfigs.add(new MethodConfig(methodConfig));
+        onMethodConfigsChanged();
+    }
+
+    private void onMethodConfigsChanged() {
+        List<MethodConfig> oldConfigs = methodConfigs;
+        List<MethodConfig> newConfigs = compileMethodConfigs();
+        if (oldConfigs == null) {
+            // nobody has read configs yet
+            return;
+        }
+        List<MethodConfig> removedConfigs = subtract(oldConfigs, newConfigs);
+        List<MethodConfig> addedConfigs = subtract(newConfigs, oldConfigs);
+        if (!removedConfigs.isEmpty() || !addedConfigs.isEmpty()) {
+            ApplicationManager.getApplication().getMessageBus().syncPublisher(SettingsChangeListener.TOPIC)
+                    .methodConfigsChanged(removedConfigs, addedConfigs);
+        }
+    }
+
+    /**
+     * @return configs in first list but not in second, equal configs are counted
+     */
+    private static List<MethodConfig> subtract(List<MethodConfig> methodConfigs, List<MethodConfig> others) {
+        List<MethodConfig> result = new ArrayList<>(methodConfigs);
+        for (MethodConfig other : others) {
+            result.remove(other);
+        }
+        return result;
+    }
+
+    /**
+     * @return mutable list of copies of given configs
+     */
+    private static List<MethodConfig> copyOf(List<MethodConfig> methodConfigs) {
+        List<MethodConfig> result = new ArrayList<>(methodConfigs.size());
+        for (MethodConfig methodConfig : methodConfigs) {
+            result.add(new MethodConfig(methodConfig));
+        }
+        return result;
+    }
+
+    /**
+     * copy configs in state and build their lookup, so searches don't build it.
+     * configs are copied too, changes of state or of callers' objects never reach configs in use
+     */
+    private synchronized List<MethodConfig> compileMethodConfigs() {
+        List<MethodConfig> current = Collections.unmodifiableList(copyOf(state.methodConfigs));
+        MethodConfigLookup.of(current);
+        methodConfigs = current;
+        return current;
     }
 
     @Override
@@ -90,6 +149,7 @@ public class MethodConfigSetting implements PersistentStateComponent<MethodConfi
     @Override
     public void loadState(@NotNull State state) {
         this.state = state;
+        onMethodConfigsChanged();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package io.github.andyssder.ffind.model.state;
+
+import com.intellij.util.messages.Topic;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.MethodConfig;
+
+import java.util.List;
+
+/**
+ * listener of plugin settings, published on application message bus and broadcast to projects
+ */
+public interface SettingsChangeListener {
+
+    @Topic.AppLevel
+    Topic<SettingsChangeListener> TOPIC = new Topic<>(SettingsChangeListener.class, Topic.BroadcastDirection.TO_CHILDREN);
+
+    /**
+     * method configs changed, an edited config is removed in old form and added in new form
+     * @param removedConfigs configs not in settings anymore
+     * @param addedConfigs configs new in settings
+     */
+    default void methodConfigsChanged(List<MethodConfig> removedConfigs, List<MethodConfig> addedConfigs) {
+    }
+
+    /**
+     * general config changed
+     */
+    default void generalConfigChanged(GeneralConfig oldConfig, GeneralConfig newConfig) {
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.andyssder.ffind.startup;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import io.github.andyssder.ffind.index.CopyCallSiteWarmUp;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * start warm up of copy call site table when project is opened, it waits for smart mode by itself
+ */
+public class CopyCallSiteWarmUpActivity implements StartupActivity, DumbAware {
+
+    @Override
+    public void runActivity(@NotNull Project project) {
+        // service listens to indexing and settings from now on, even if warm up is disabled
+        CopyCallSiteWarmUp.getInstance(project).schedule();
+    }
+}
@@ -1,15 +1,24 @@
 package io.github.andyssder.ffind.ui.setting;
 
+import io.github.andyssder.ffind.cache.FindResultCache;
 import io.github.andyssder.ffind.model.GeneralConfig;
 import io.github.andyssder.ffind.model.state.GeneralSetting;
 import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManager;
 
 import javax.swing.*;
 import java.awt.*;
 
 public class GeneralConfigurable implements Configurable {
     private JCheckBox cacheEnableCheckbox;
-    private JTextField cacheTimeField;
+    private JTextField maxCacheEntriesField;
+    private JTextField maxCacheUsagesField;
+    private JCheckBox parallelSearchEnableCheckbox;
+    private JTextField searchParallelismField;
+    private JCheckBox warmUpEnableCheckbox;
+    private JLabel cacheOccupancyLabel;
     private final GeneralSetting settings = GeneralSetting.getInstance();
 
     @Override
@@ -23,16 +32,28 @@ public class GeneralConfigurable implements Configurable {
         panel.setLayout(new BorderLayout(0, 10));
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        panel.add(createSeparator(), BorderLayout.NORTH);
-        panel.add(createConfigRow(), BorderLayout.CENTER);
+        JPanel content = new JPanel();
+        content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
+        content.add(createSeparator("Cache"));
+        content.add(Box.createVerticalStrut(10));
+        content.add(createConfigRow());
+        content.add(Box.createVerticalStrut(10));
+        content.add(createOccupancyRow());
+        content.add(Box.createVerticalStrut(20));
+        content.add(createSeparator("Search"));
+        content.add(Box.createVerticalStrut(10));
+        content.add(createSearchRow());
+
+        panel.add(content, BorderLayout.NORTH);
         return panel;
     }
 
-    private JPanel createSeparator() {
+    private JPanel createSeparator(String title) {
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.X_AXIS));
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        JLabel label = new JLabel("Cache");
+        JLabel label = new JLabel(title);
         label.setAlignmentY(Component.CENTER_ALIGNMENT);
 
         JSeparator separator = new JSeparator();
@@ -47,38 +68,109 @@ public class GeneralConfigurable implements Configurable {
 
     private JPanel createConfigRow() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 0));
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
         cacheEnableCheckbox = new JCheckBox("Enable Cache", getGeneralConfig().getCacheEnable());
         panel.add(cacheEnableCheckbox);
 
-        panel.add(createTimeField());
+        maxCacheEntriesField = new JTextField(8);
+        maxCacheEntriesField.setText(String.valueOf(getGeneralConfig().getMaxCacheEntries()));
+        panel.add(createNumberField("Max Entries:", maxCacheEntriesField));
+
+        maxCacheUsagesField = new JTextField(8);
+        maxCacheUsagesField.setText(String.valueOf(getGeneralConfig().getMaxCacheUsages()));
+        panel.add(createNumberField("Max Usages:", maxCacheUsagesField));
         return panel;
     }
 
-    private JPanel createTimeField() {
-        JPanel container = new JPanel(new BorderLayout(5, 0));
-        container.add(new JLabel("Expire Time:"), BorderLayout.WEST);
+    private JPanel createSearchRow() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 0));
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        cacheTimeField = new JTextField(8);
-        cacheTimeField.setText(String.valueOf(settings.getGeneralConfig().getCacheTime()));
-        container.add(cacheTimeField, BorderLayout.CENTER);
+        parallelSearchEnableCheckbox = new JCheckBox("Parallel Search", getGeneralConfig().getParallelSearchEnable());
+        panel.add(parallelSearchEnableCheckbox);
 
-        container.add(new JLabel("ms"), BorderLayout.EAST);
+        searchParallelismField = new JTextField(8);
+        searchParallelismField.setText(String.valueOf(getGeneralConfig().getSearchParallelism()));
+        panel.add(createNumberField("Threads:", searchParallelismField));
+
+        warmUpEnableCheckbox = new JCheckBox("Warm Up In Background", getGeneralConfig().getWarmUpEnable());
+        warmUpEnableCheckbox.setToolTipText("Search copy calls after project is opened and indexed");
+        panel.add(warmUpEnableCheckbox);
+        return panel;
+    }
+
+    private JPanel createNumberField(String label, JTextField field) {
+        JPanel container = new JPanel(new BorderLayout(5, 0));
+        container.add(new JLabel(label), BorderLayout.WEST);
+        container.add(field, BorderLayout.CENTER);
         return container;
     }
 
+    private JPanel createOccupancyRow() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 0));
+        panel.setAlignmentX(Component.LEFT_ALIGNMENT);
+
+        cacheOccupancyLabel = new JLabel(getCacheOccupancyText());
+        panel.add(cacheOccupancyLabel);
+        return panel;
+    }
+
+    /**
+     * occupancy and hit statistics of the cache of each open project
+     */
+    private String getCacheOccupancyText() {
+        StringBuilder text = new StringBuilder("<html>");
+        for (Project project : ProjectManager.getInstance().getOpenProjects()) {
+            FindResultCache cache = project.isDisposed() ? null : project.getServiceIfCreated(FindResultCache.class);
+            if (cache == null) {
+                continue;
+            }
+            text.append(project.getName()).append(": ")
+                    .append(cache.getEntryCount()).append(" entries, ")
+                    .append(cache.getUsageCount()).append(" usages, ")
+                    .append(cache.getHitCount()).append(" hits, ")
+                    .append(cache.getMissCount()).append(" misses<br/>");
+        }
+        if (text.length() == "<html>".length()) {
+            text.append("Cache is empty");
+        }
+        return text.append("</html>").toString();
+    }
+
     @Override
     public boolean isModified() {
         return cacheEnableCheckbox.isSelected() != getGeneralConfig().getCacheEnable() ||
-                !cacheTimeField.getText().equals(String.valueOf(getGeneralConfig().getCacheTime()));
+                !maxCacheEntriesField.getText().equals(String.valueOf(getGeneralConfig().getMaxCacheEntries())) ||
+                !maxCacheUsagesField.getText().equals(String.valueOf(getGeneralConfig().getMaxCacheUsages())) ||
+                parallelSearchEnableCheckbox.isSelected() != getGeneralConfig().getParallelSearchEnable() ||
+                !searchParallelismField.getText().equals(String.valueOf(getGeneralConfig().getSearchParallelism())) ||
+                warmUpEnableCheckbox.isSelected() != getGeneralConfig().getWarmUpEnable();
     }
 
     @Override
-    public void apply() {
+    public void apply() throws ConfigurationException {
         GeneralConfig newConfig = new GeneralConfig();
         newConfig.setCacheEnable(cacheEnableCheckbox.isSelected());
-        newConfig.setCacheTime(Long.parseLong(cacheTimeField.getText()));
+        newConfig.setMaxCacheEntries(parsePositiveNumber(maxCacheEntriesField, "Max entries"));
+        newConfig.setMaxCacheUsages(parsePositiveNumber(maxCacheUsagesField, "Max usages"));
+        newConfig.setParallelSearchEnable(parallelSearchEnableCheckbox.isSelected());
+        newConfig.setSearchParallelism(parsePositiveNumber(searchParallelismField, "Threads"));
+        newConfig.setWarmUpEnable(warmUpEnableCheckbox.isSelected());
         setGeneralConfig(newConfig);
+        cacheOccupancyLabel.setText(getCacheOccupancyText());
+    }
+
+    private int parsePositiveNumber(JTextField field, String name) throws ConfigurationException {
+        try {
+            int value = Integer.parseInt(field.getText().trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            // report below
+        }
+        throw new ConfigurationException(name + " must be a positive number");
     }
 
     private GeneralConfig getGeneralConfig() {
@@ -27,6 +27,7 @@ public class MethodConfigEditorDialog extends DialogWrapper {
 
     private JTextField classNameField;
     private JTextField methodNameField;
+    private JTextField paramTypesField;
     private JComboBox<Integer> sourceIndexCombo;
     private JComboBox<Integer> targetIndexCombo;
     private JCheckBox includeEnableCombo;
@@ -81,6 +82,9 @@ public class MethodConfigEditorDialog extends DialogWrapper {
         classNameField.setText(originalMethodConfig.getClassName());
         methodNameField.setText(originalMethodConfig.getMethodName());
         originalMethodConfig.getParamNames().forEach(paramsListModel::addElement);
+        if (originalMethodConfig.getParamTypes() != null) {
+            paramTypesField.setText(String.join(", ", originalMethodConfig.getParamTypes()));
+        }
         sourceIndexCombo.setSelectedItem(originalMethodConfig.getSourceParamIndex());
         targetIndexCombo.setSelectedItem(originalMethodConfig.getTargetParamIndex());
         includeEnableCombo.setSelected(originalMethodConfig.getIncludeFieldParamEnable());
@@ -108,6 +112,13 @@ public class MethodConfigEditorDialog extends DialogWrapper {
         gbc.weighty = 1.0;
         panel.add(createParamsSection(), gbc);
 
+        // Parameter Types, optional
+        gbc.gridy++;
+        gbc.weighty = 0;
+        paramTypesField = new JBTextField(25);
+        paramTypesField.getEmptyText().setText("e.g. java.lang.Object, java.lang.String[]");
+        panel.add(createLabeledField("Parameter Types:", paramTypesField), gbc);
+
         // Index Selectors
         gbc.gridy++;
         gbc.weighty = 0;
@@ -173,10 +184,19 @@ public class MethodConfigEditorDialog extends DialogWrapper {
         boolean includeEnable = includeEnableCombo.isSelected();
         boolean excludeEnable = excludeEnableCombo.isSelected();
 
+        List<String> paramTypes = getParamTypes();
+        if (!paramTypes.isEmpty() && paramTypes.size() != paramCount) {
+            showError("Parameter types count doesn't match parameter count");
+            return false;
+        }
         if (sourceIndex >= paramCount || targetIndex >= paramCount) {
             showError("Param index exceeds parameter count");
             return false;
         }
+        if (sourceIndex >= 0 && sourceIndex == targetIndex) {
+            showError("Source and target can't be the same param");
+            return false;
+        }
         if (includeEnable && excludeEnable) {
             showError("Include Fields Enable and exclude Fields Enable can't be true at the same time");
             return false;
@@ -194,7 +214,7 @@ public class MethodConfigEditorDialog extends DialogWrapper {
             params.add(paramsListModel.getElementAt(i));
         }
 
-        return new MethodConfig(
+        MethodConfig methodConfig = new MethodConfig(
                 classNameField.getText().trim(),
                 methodNameField.getText().trim(),
                 params,
@@ -203,6 +223,22 @@ public class MethodConfigEditorDialog extends DialogWrapper {
                 excludeEnableCombo.isSelected(),
                 includeEnableCombo.isSelected()
         );
+        List<String> paramTypes = getParamTypes();
+        methodConfig.setParamTypes(paramTypes.isEmpty() ? null : paramTypes);
+        return methodConfig;
+    }
+
+    /**
+     * erased parameter types separated by comma, empty if parameters are matched by names
+     */
+    private List<String> getParamTypes() {
+        List<String> paramTypes = new ArrayList<>();
+        for (String paramType : paramTypesField.getText().split(",")) {
+            if (!paramType.trim().isEmpty()) {
+                paramTypes.add(paramType.trim());
+            }
+        }
+        return paramTypes;
     }
 
 
@@ -67,12 +67,14 @@ public class MethodConfigTableModel extends AbstractTableModel {
 
     @Override
     public void setValueAt(Object value, int row, int column) {
-        MethodConfig methodConfig = methodConfigs.get(row);
+        // configs may be in use by settings, edit a copy and replace the row
+        MethodConfig methodConfig = new MethodConfig(methodConfigs.get(row));
         try {
             switch (column) {
                 case 3: methodConfig.setSourceParamIndex(Integer.parseInt(value.toString())); break;
                 case 4: methodConfig.setTargetParamIndex(Integer.parseInt(value.toString())); break;
             }
+            methodConfigs.set(row, methodConfig);
             fireTableCellUpdated(row, column);
         } catch (NumberFormatException e) {
             Messages.showErrorDialog("Invalid number format", "Error");
@@ -2,13 +2,19 @@ package io.github.andyssder.ffind.cache;
 
 import io.github.andyssder.ffind.PsiTestUtil;
 import io.github.andyssder.ffind.common.ReferenceType;
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.model.state.GeneralSetting;
 import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.psi.*;
 import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 
 public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
@@ -18,7 +24,7 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
     @Override
     public void setUp() throws Exception {
         super.setUp();
-        cache = FindResultCache.getInstance();
+        cache = FindResultCache.getInstance(getProject());
     }
 
     @Override
@@ -29,9 +35,9 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
         }
     }
 
-    public void testSingletonInstance() {
-        FindResultCache anotherInstance = FindResultCache.getInstance();
-        assertSame("Instances should be the same", cache, anotherInstance);
+    public void testProjectInstance() {
+        FindResultCache anotherInstance = FindResultCache.getInstance(getProject());
+        assertSame("Instances should be the same in one project", cache, anotherInstance);
     }
 
     public void testEmptyCache() {
@@ -43,17 +49,19 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
     public void testCacheStorageAndRetrieval() {
         PsiField testField = createTestField("TestClass", "testField");
         List<CopyUsageInfo> testData = createTestUsageInfos(testField);
-        long expireTime = 5000;
-
         String cacheKey = "cacheKey";
-        cache.updateCacheResult(cacheKey, testData, expireTime);
+        cache.updateCacheResult(cacheKey, testData);
         Optional<List<CopyUsageInfo>> result = cache.getCachedResul(cacheKey);
 
         assertTrue("Result should be present", result.isPresent());
         assertEquals("Should return correct data size", testData.size(), result.get().size());
         for (int i = 0; i < testData.size(); i++) {
             CopyUsageInfo copyUsageInfo = testData.get(i);
-            assertSame("Should return correct data", copyUsageInfo, result.get().get(i));
+            CopyUsageInfo cachedUsageInfo = result.get().get(i);
+            assertEquals("Should return correct data", copyUsageInfo, cachedUsageInfo);
+            assertEquals("Should keep usage element", copyUsageInfo.getElement(), cachedUsageInfo.getElement());
+            assertEquals("Should keep usage range", copyUsageInfo.getRangeInElement(), cachedUsageInfo.getRangeInElement());
+            assertEquals("Should keep usage type", copyUsageInfo.getType(), cachedUsageInfo.getType());
         }
 
         String anotherCacheKey = "anotherCacheKey";
@@ -61,19 +69,155 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
         assertFalse("Cache should be isolated by field", anotherResult.isPresent());
     }
 
-    public void testCacheExpiration() throws InterruptedException {
+    public void testCacheValidWithoutModification() throws InterruptedException {
         PsiField testField = createTestField("TestClass", "testField");
         List<CopyUsageInfo> testData = createTestUsageInfos(testField);
         String cacheKey = "cacheKey";
-        cache.updateCacheResult(cacheKey, testData, 100L);
+        cache.updateCacheResult(cacheKey, testData);
+
+        Thread.sleep(150);
 
         Optional<List<CopyUsageInfo>> result = cache.getCachedResul(cacheKey);
-        assertTrue("Cache should be valid before expiration", result.isPresent());
+        assertTrue("Cache should be valid while nothing changes", result.isPresent());
+    }
 
-        Thread.sleep(150);
+    public void testCacheInvalidatedByModification() {
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> testData = createTestUsageInfos(testField);
+        String cacheKey = "cacheKey";
+        cache.updateCacheResult(cacheKey, testData);
+
+        Optional<List<CopyUsageInfo>> result = cache.getCachedResul(cacheKey);
+        assertTrue("Cache should be valid before modification", result.isPresent());
+
+        createTestField("ModifiedClass", "modifiedField");
+
+        Optional<List<CopyUsageInfo>> modifiedResult = cache.getCachedResul(cacheKey);
+        assertFalse("Cache should be invalid after modification", modifiedResult.isPresent());
+    }
+
+    public void testEditInsideMethodBodyKeepsResultOfOtherFiles() {
+        PsiField testField = createTestField("TestClass", "testField");
+        PsiMethod editedMethod = PsiTestUtil.createTestMethod(myFixture, "EditedClass", "editedMethod");
+        List<CopyUsageInfo> testData = createTestUsageInfos(testField);
+        String cacheKey = "cacheKey";
+        cache.updateCacheResult(cacheKey, testData);
+
+        editMethodBody(editedMethod);
+
+        assertFalse("Edited file should be searched again", cache.getCachedResul(cacheKey).isPresent());
+        Optional<FindResultCache.PartialResult> result = cache.getPartialResult(cacheKey);
+        assertTrue("Result should be kept after edit inside method body", result.isPresent());
+        assertEquals("Usages of other files should be kept", testData.size(), result.get().getUsageInfos().size());
+        assertEquals("Edited file should be reported", Set.of(editedMethod.getContainingFile().getVirtualFile()),
+                result.get().getChangedFiles());
+    }
+
+    public void testEditOutsideMethodBodyInvalidatesResult() {
+        PsiField testField = createTestField("TestClass", "testField");
+        PsiMethod editedMethod = PsiTestUtil.createTestMethod(myFixture, "EditedClass", "editedMethod");
+        cache.updateCacheResult("cacheKey", createTestUsageInfos(testField));
+
+        PsiClass editedClass = editedMethod.getContainingClass();
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> editedClass.add(
+                JavaPsiFacade.getElementFactory(getProject()).createFieldFromText("private int addedField;", editedClass)));
+
+        assertFalse("Result should be invalid after structure change", cache.getPartialResult("cacheKey").isPresent());
+    }
+
+    public void testHitAndMissCount() {
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> testData = createTestUsageInfos(testField);
+        long hitCount = cache.getHitCount();
+        long missCount = cache.getMissCount();
+
+        String cacheKey = "cacheKey";
+        cache.getCachedResul(cacheKey);
+        cache.updateCacheResult(cacheKey, testData);
+        cache.getCachedResul(cacheKey);
+
+        assertEquals("Should count hit", hitCount + 1, cache.getHitCount());
+        assertEquals("Should count miss", missCount + 1, cache.getMissCount());
+    }
+
+    public void testLeastRecentlyUsedEviction() {
+        GeneralSetting generalSetting = GeneralSetting.getInstance();
+        GeneralConfig originalConfig = generalSetting.getGeneralConfig();
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        generalConfig.setMaxCacheEntries(2);
+        generalSetting.setGeneralConfig(generalConfig);
+        try {
+            PsiField testField = createTestField("TestClass", "testField");
+            List<CopyUsageInfo> testData = createTestUsageInfos(testField);
 
-        Optional<List<CopyUsageInfo>> expiredResult = cache.getCachedResul(cacheKey);
-        assertFalse("Expired cache should be empty", expiredResult.isPresent());
+            cache.updateCacheResult("firstKey", testData);
+            cache.updateCacheResult("secondKey", testData);
+            assertTrue("First entry should exist", cache.getCachedResul("firstKey").isPresent());
+
+            cache.updateCacheResult("thirdKey", testData);
+            assertEquals("Cache should be bounded", 2, cache.getEntryCount());
+            assertEquals("Should count usages of entries", 2L * testData.size(), cache.getUsageCount());
+            assertTrue("Recently used entry should be kept", cache.getCachedResul("firstKey").isPresent());
+            assertFalse("Least recently used entry should be evicted", cache.getCachedResul("secondKey").isPresent());
+            assertTrue("New entry should be kept", cache.getCachedResul("thirdKey").isPresent());
+        } finally {
+            generalSetting.setGeneralConfig(originalConfig);
+        }
+    }
+
+    public void testOutdatedEntriesRemoved() {
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> testData = createTestUsageInfos(testField);
+        cache.updateCacheResult("outdatedKey", testData);
+
+        createTestField("ModifiedClass", "modifiedField");
+        cache.updateCacheResult("cacheKey", List.of());
+
+        assertEquals("Outdated entry should be removed", 1, cache.getEntryCount());
+        assertEquals("Usages of outdated entry should be removed", 0, cache.getUsageCount());
+    }
+
+    public void testRemovedConfigDropsDependentEntriesOnly() {
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> testData = createTestUsageInfos(testField);
+        MethodConfig removedConfig = new MethodConfig(
+                "BeanUtils", "copyProperties", List.of("source", "target"), 0, 1, false, false);
+        MethodConfig keptConfig = new MethodConfig(
+                "CustomUtils", "copy", List.of("source", "target"), 0, 1, false, false);
+        FindResultCache.Stamp stamp = FindResultCache.Stamp.current(getProject());
+        cache.updateCacheResult("removedKey", testData, stamp, Set.of("TestClass"), Set.of(removedConfig));
+        cache.updateCacheResult("keptKey", testData, stamp, Set.of("TestClass"), Set.of(keptConfig));
+
+        cache.onMethodConfigsChanged(List.of(new MethodConfig(
+                "BeanUtils", "copyProperties", List.of("source", "target"), 0, 1, false, false)), List.of());
+
+        assertFalse("Entry using removed config should be dropped", cache.getCachedResul("removedKey").isPresent());
+        assertTrue("Unrelated entry should be kept", cache.getCachedResul("keptKey").isPresent());
+    }
+
+    public void testResultSearchedWithOldConfigsNotSaved() {
+        PsiField testField = createTestField("TestClass", "testField");
+        FindResultCache.Stamp stamp = FindResultCache.Stamp.current(getProject());
+        cache.onMethodConfigsChanged(List.of(), List.of());
+
+        cache.updateCacheResult("cacheKey", createTestUsageInfos(testField), stamp, Set.of("TestClass"), Set.of());
+
+        assertFalse("Result of old configs should not be saved", cache.getCachedResul("cacheKey").isPresent());
+    }
+
+    public void testConcurrentSearchOfSameKeyWaitsForRunningOne() {
+        assertNull("First caller should run the search", cache.startSearch("searchKey"));
+        CompletableFuture<Void> running = cache.startSearch("searchKey");
+        assertNotNull("Second caller should wait for the running search", running);
+        assertNull("Other key should be searched at once", cache.startSearch("otherSearchKey"));
+
+        cache.finishSearch("searchKey");
+        cache.finishSearch("otherSearchKey");
+
+        assertTrue("Waiting caller should be woken", running.isDone());
+        assertNull("Next caller should run a new search", cache.startSearch("searchKey"));
+        cache.finishSearch("searchKey");
     }
 
     public void testCacheClear() {
@@ -81,7 +225,7 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
         List<CopyUsageInfo> testFieldData = createTestUsageInfos(testField);
 
         String cacheKey = "cacheKey";
-        cache.updateCacheResult(cacheKey, testFieldData, 5000L);
+        cache.updateCacheResult(cacheKey, testFieldData);
         assertTrue("Test field cache should exist before clear",
                 cache.getCachedResul(cacheKey).isPresent());
 
@@ -89,7 +233,7 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
         List<CopyUsageInfo> anotherFieldData = createTestUsageInfos(anotherField);
 
         String anotherCacheKey = "anotherCacheKey";
-        cache.updateCacheResult(anotherCacheKey, anotherFieldData, 5000L);
+        cache.updateCacheResult(anotherCacheKey, anotherFieldData);
         assertTrue("Another field cache should exist before clear",
                 cache.getCachedResul(anotherCacheKey).isPresent());
 
@@ -102,6 +246,13 @@ public class FindResultCacheTest extends LightJavaCodeInsightFixtureTestCase {
         assertFalse("Another field cache should be cleared", result2.isPresent());
     }
 
+    private void editMethodBody(PsiMethod method) {
+        PsiCodeBlock body = method.getBody();
+        assertNotNull("Method should have a body", body);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> body.add(
+                JavaPsiFacade.getElementFactory(getProject()).createStatementFromText("int i = 0;", body)));
+    }
+
     @NotNull
     private PsiField createTestField(String className, String fieldName) {
         return PsiTestUtil.createTestFieldWithSelfReference(myFixture, className, fieldName);
@@ -9,8 +9,18 @@ import io.github.andyssder.ffind.model.idea.CopyUsageInfo;
 import io.github.andyssder.ffind.model.idea.MethodCallReference;
 import io.github.andyssder.ffind.model.state.GeneralSetting;
 import io.github.andyssder.ffind.model.state.MethodConfigSetting;
+import com.intellij.find.findUsages.FindUsagesOptions;
 import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.CommonProcessors;
+import com.intellij.testFramework.PlatformTestUtil;
 import com.intellij.testFramework.ServiceContainerUtil;
 import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
 import org.apache.commons.collections.CollectionUtils;
@@ -18,6 +28,11 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.intellij.openapi.application.ApplicationManager.getApplication;
 import static org.mockito.Mockito.*;
@@ -34,7 +49,7 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         super.setUp();
 
         detector = new FiledCopyUsageInfoDetector();
-        cache = FindResultCache.getInstance();
+        cache = FindResultCache.getInstance(getProject());
 
         generalSetting = mock(GeneralSetting.class);
         methodConfigSetting = mock(MethodConfigSetting.class);
@@ -72,12 +87,86 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         List<CopyUsageInfo> anotherFieldUsages = createMockUsageInfos(anotherField);
 
         String cacheKey = generateKeyForField(field);
-        cache.updateCacheResult(cacheKey, anotherFieldUsages, 5000L);
+        cache.updateCacheResult(cacheKey, anotherFieldUsages);
 
         List<CopyUsageInfo> result = detector.findCopyUsageInfo(field, null);
         assertEquals("Should return cached data", anotherFieldUsages, result);
     }
 
+    public void testFindCopyUsageInfoCachesEmptyResult() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(List.of());
+
+        PsiField field = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> result = detector.findCopyUsageInfo(field, null);
+        assertEmpty("Should return empty data", result);
+
+        Optional<List<CopyUsageInfo>> cached = cache.getCachedResul(generateKeyForField(field));
+        assertTrue("Empty result should be cached", cached.isPresent());
+        assertEmpty("Cached result should be empty", cached.get());
+    }
+
+    public void testFindCopyUsageInfoCachesOtherFieldsOfClass() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        myFixture.configureByText("TestClass.java",
+                "public class TestClass {\n" +
+                        "   private String testField;\n" +
+                        "   private String otherField;\n" +
+                        "}");
+        PsiClass testClass = myFixture.findClass("TestClass");
+        PsiField testField = testClass.findFieldByName("testField", false);
+        PsiField otherField = testClass.findFieldByName("otherField", false);
+        CopyUsageInfo readUsageInfo = createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        CopyUsageInfo writeUsageInfo = createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+
+        detector.findCopyUsageInfo(testField, null);
+
+        Optional<List<CopyUsageInfo>> otherFieldResult = cache.getCachedResul(generateKeyForField(otherField));
+        assertTrue("Other field of class should be cached", otherFieldResult.isPresent());
+        assertEquals("Other field should have read and write usages", 2, otherFieldResult.get().size());
+        // whole objects are copied, other field is used by the same arguments
+        assertTrue("Usages cached in compact form should be restored to the copy arguments",
+                CollectionUtils.isEqualCollection(List.of(readUsageInfo, writeUsageInfo), otherFieldResult.get()));
+    }
+
+    public void testFindCopyUsageInfoPatchesCacheAfterMethodBodyEdit() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        CopyUsageInfo readUsage = createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+        assertEquals("Should find read and write usages", 2, detector.findCopyUsageInfo(testField, null).size());
+
+        // remove the copy call inside method body of write reference class
+        PsiCodeBlock body = myFixture.findClass("WriteReferenceClass").findMethodsByName("testMethod", false)[0].getBody();
+        assertNotNull("Method should have a body", body);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> body.getStatements()[1].delete());
+
+        long missCount = cache.getMissCount();
+        List<CopyUsageInfo> result = detector.findCopyUsageInfo(testField, null);
+        assertEquals("Should keep usage of unedited file only", List.of(readUsage), result);
+        assertEquals("Should patch cached result instead of searching again", missCount, cache.getMissCount());
+    }
+
     public void testFindCopyUsageInfoWithNormalCopyMethod() {
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(false);
@@ -98,6 +187,112 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         assertEquals("Should return same usage infos", expected, actual);
     }
 
+    public void testProcessMethodCallsInParallelKeepsOrderOfFiles() {
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        createCopyClasses(List.of(methodConfig));
+
+        PsiField testField = createTestField("TestClass", "testField");
+        for (int i = 0; i < 6; i++) {
+            createRealUsageInfos("ReferenceClass" + i, testField, ReferenceType.INDIRECT_READ, methodConfig);
+        }
+
+        List<PsiMethodCallExpression> sequential = processMethodCalls(methodConfig, 1);
+        // workers are used only when caller doesn't hold read access
+        Future<List<PsiMethodCallExpression>> future = getApplication().executeOnPooledThread(() -> processMethodCalls(methodConfig, 4));
+        List<PsiMethodCallExpression> parallel = PlatformTestUtil.waitForFuture(future, 10_000);
+
+        assertEquals("Should find calls of all files", 6, sequential.size());
+        assertEquals("Parallel search should return calls in order of sequential search", sequential, parallel);
+    }
+
+    public void testFindCopyUsageInfoAfterArgumentTypeChangedInOtherFile() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        myFixture.configureByText("OrderService.java", """
+                public class OrderService {
+                    public TestClass getOrder() {
+                        return null;
+                    }
+                }""");
+        myFixture.configureByText("ServiceReferenceClass.java", """
+                public class ServiceReferenceClass {
+                    public void testMethod(OrderService service, Object target) {
+                        BeanUtils.copyProperties(service.getOrder(), target);
+                    }
+                }""");
+        assertEquals("Should find usage by return type of other file", 1, detector.findCopyUsageInfo(testField, null).size());
+
+        PsiMethod getOrder = myFixture.findClass("OrderService").findMethodsByName("getOrder", false)[0];
+        PsiTypeElement returnTypeElement = getOrder.getReturnTypeElement();
+        assertNotNull("Method should have return type", returnTypeElement);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> returnTypeElement.replace(
+                JavaPsiFacade.getElementFactory(getProject()).createTypeElementFromText("Object", getOrder)));
+
+        assertEmpty("Should use changed return type of other file", detector.findCopyUsageInfo(testField, null));
+    }
+
+    public void testFindCopyUsageInfoAfterCopyMethodParamRenamed() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        assertEquals("Should find usage of matched copy method", 1, detector.findCopyUsageInfo(testField, null).size());
+
+        PsiParameter sourceParam = myFixture.findClass("BeanUtils").findMethodsByName("copyProperties", false)[0]
+                .getParameterList().getParameters()[0];
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> sourceParam.setName("from"));
+
+        assertEmpty("Copy method which doesn't match config anymore should not be used",
+                detector.findCopyUsageInfo(testField, null));
+    }
+
+    public void testFindCopyUsageInfoAfterOverloadOfGroupAdded() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        MethodConfig ignoreMethodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target", "ignoreProperties"), 0, 1, true, false);
+        // only the first overload of the group exists
+        createCopyClasses(List.of(methodConfig));
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(List.of(methodConfig, ignoreMethodConfig));
+
+        PsiField testField = createTestField("TestClass", "testField");
+        myFixture.configureByText("IgnoreReferenceClass.java", """
+                public class IgnoreReferenceClass {
+                    public void testMethod(TestClass test, Object target) {
+                        BeanUtils.copyProperties(test, target, "otherField");
+                    }
+                }""");
+        assertEmpty("Call of missing overload should not be found", detector.findCopyUsageInfo(testField, null));
+
+        PsiClass copyClass = myFixture.findClass("BeanUtils");
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> copyClass.add(JavaPsiFacade.getElementFactory(getProject())
+                .createMethodFromText("public static void copyProperties(Object source, Object target, String... ignoreProperties) {}", copyClass)));
+
+        assertEquals("Call of added overload should be found", 1, detector.findCopyUsageInfo(testField, null).size());
+    }
+
     public void testFindCopyUsageInfoWithCustomCopyMethod() {
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(false);
@@ -119,6 +314,284 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         assertEquals("Should return same usage infos", expected, actual);
     }
 
+    public void testFindCopyUsageInfoInSearchScope() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        CopyUsageInfo readUsageInfo = createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+
+        FindUsagesOptions options = new FindUsagesOptions(getProject());
+        options.searchScope = GlobalSearchScope.fileScope(getProject(), readUsageInfo.getVirtualFile());
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField, options);
+        assertEquals("Should return usage infos in scope", List.of(readUsageInfo), actual);
+        assertFalse("Result of narrow scope should not be cached",
+                cache.getCachedResul(generateKeyForField(testField)).isPresent());
+    }
+
+    public void testFindCopyUsageInfoInProjectScopeFillsCache() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        CopyUsageInfo readUsageInfo = createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        CopyUsageInfo writeUsageInfo = createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+
+        FindUsagesOptions options = new FindUsagesOptions(getProject());
+        options.searchScope = GlobalSearchScope.projectScope(getProject());
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField, options);
+        assertTrue("Should find usages in project scope", CollectionUtils.isEqualCollection(List.of(readUsageInfo, writeUsageInfo), actual));
+        Optional<List<CopyUsageInfo>> cached = cache.getCachedResul(generateKeyForField(testField));
+        assertTrue("Search of project scope should fill cache of all scope", cached.isPresent());
+        assertEquals(2, cached.get().size());
+
+        long hitCount = cache.getHitCount();
+        actual = detector.findCopyUsageInfo(testField, options);
+        assertEquals("Should answer project scope from cached result", hitCount + 1, cache.getHitCount());
+        assertTrue(CollectionUtils.isEqualCollection(List.of(readUsageInfo, writeUsageInfo), actual));
+    }
+
+    public void testConcurrentFindOfSameFieldReusesRunningSearch() {
+        PsiField testField = createCachedSearchFixture();
+        String cacheKey = generateKeyForField(testField);
+        CountDownLatch ownerStarted = new CountDownLatch(1);
+        CountDownLatch releaseOwner = new CountDownLatch(1);
+        List<CopyUsageInfo> ownerResult = Collections.synchronizedList(new ArrayList<>());
+        Future<Boolean> owner = startBlockedSearch(testField, ownerResult, ownerStarted, releaseOwner);
+
+        long missCount = cache.getMissCount();
+        long hitCount = cache.getHitCount();
+        Future<List<CopyUsageInfo>> waiter = getApplication().executeOnPooledThread(() -> detector.findCopyUsageInfo(testField, null));
+        PlatformTestUtil.waitWithEventsDispatching("Waiter should miss cache",
+                () -> cache.getMissCount() > missCount, 10);
+        assertFalse("Waiter should not finish while the running search is blocked", waiter.isDone());
+
+        releaseOwner.countDown();
+        assertTrue(PlatformTestUtil.waitForFuture(owner, 10_000));
+        List<CopyUsageInfo> waiterResult = PlatformTestUtil.waitForFuture(waiter, 10_000);
+
+        assertTrue("Waiter should get result of the running search", CollectionUtils.isEqualCollection(ownerResult, waiterResult));
+        assertEquals("Waiter should take result from cache", hitCount + 1, cache.getHitCount());
+        assertTrue(cache.getCachedResul(cacheKey).isPresent());
+    }
+
+    public void testReadActionFindKeepsRunningSearchRegistered() {
+        PsiField testField = createCachedSearchFixture();
+        String cacheKey = generateKeyForField(testField);
+        CountDownLatch ownerStarted = new CountDownLatch(1);
+        CountDownLatch releaseOwner = new CountDownLatch(1);
+        List<CopyUsageInfo> ownerResult = Collections.synchronizedList(new ArrayList<>());
+        Future<Boolean> owner = startBlockedSearch(testField, ownerResult, ownerStarted, releaseOwner);
+
+        // caller in read action can't wait, it searches by itself
+        Future<List<CopyUsageInfo>> readActionFind = getApplication().executeOnPooledThread(
+                () -> ReadAction.compute(() -> detector.findCopyUsageInfo(testField, null)));
+        assertEquals("Caller in read action should search by itself", 2,
+                PlatformTestUtil.waitForFuture(readActionFind, 10_000).size());
+
+        CompletableFuture<Void> running = cache.startSearch("class:TestClass");
+        assertNotNull("Running search should stay registered", running);
+        assertFalse("Waiters of running search should not be woken", running.isDone());
+
+        releaseOwner.countDown();
+        assertTrue(PlatformTestUtil.waitForFuture(owner, 10_000));
+        assertTrue("Running search should wake its waiters when it finishes", running.isDone());
+        assertTrue(cache.getCachedResul(cacheKey).isPresent());
+    }
+
+    public void testCancelWaiterKeepsRunningSearch() throws Exception {
+        PsiField testField = createCachedSearchFixture();
+        String cacheKey = generateKeyForField(testField);
+        CountDownLatch ownerStarted = new CountDownLatch(1);
+        CountDownLatch releaseOwner = new CountDownLatch(1);
+        List<CopyUsageInfo> ownerResult = Collections.synchronizedList(new ArrayList<>());
+        Future<Boolean> owner = startBlockedSearch(testField, ownerResult, ownerStarted, releaseOwner);
+
+        long missCount = cache.getMissCount();
+        ProgressIndicator waiterIndicator = new EmptyProgressIndicator();
+        Future<?> waiter = getApplication().executeOnPooledThread(() -> ProgressManager.getInstance().runProcess(
+                () -> detector.findCopyUsageInfo(testField, null), waiterIndicator));
+        PlatformTestUtil.waitWithEventsDispatching("Waiter should miss cache",
+                () -> cache.getMissCount() > missCount, 10);
+
+        waiterIndicator.cancel();
+        try {
+            waiter.get(10, TimeUnit.SECONDS);
+            fail("Canceled waiter should stop waiting");
+        } catch (ExecutionException e) {
+            assertInstanceOf(e.getCause(), ProcessCanceledException.class);
+        }
+        assertFalse("Running search should go on when waiter is canceled", owner.isDone());
+
+        releaseOwner.countDown();
+        assertTrue(PlatformTestUtil.waitForFuture(owner, 10_000));
+        assertEquals(2, ownerResult.size());
+        Optional<List<CopyUsageInfo>> cached = cache.getCachedResul(cacheKey);
+        assertTrue("Running search should save its result", cached.isPresent());
+        assertEquals(2, cached.get().size());
+    }
+
+    public void testFindCopyUsageInfoInSearchScopeFromCachedResult() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        CopyUsageInfo readUsageInfo = createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+        assertEquals("Should find usages of all scope", 2, detector.findCopyUsageInfo(testField, null).size());
+
+        long hitCount = cache.getHitCount();
+        FindUsagesOptions options = new FindUsagesOptions(getProject());
+        options.searchScope = GlobalSearchScope.fileScope(getProject(), readUsageInfo.getVirtualFile());
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField, options);
+        assertEquals("Should filter cached result by scope", List.of(readUsageInfo), actual);
+        assertEquals("Should answer scope from cached result", hitCount + 1, cache.getHitCount());
+        Optional<List<CopyUsageInfo>> cached = cache.getCachedResul(generateKeyForField(testField));
+        assertTrue("Result of all scope should be kept", cached.isPresent());
+        assertEquals("Result of all scope should not be narrowed", 2, cached.get().size());
+    }
+
+    public void testClassNamesWithInheritorsKeptAfterMethodBodyEdit() {
+        myFixture.configureByText("BaseClass.java", """
+                public class BaseClass {
+                    public void testMethod() {
+                    }
+                }""");
+        PsiClass baseClass = myFixture.findClass("BaseClass");
+        Set<String> classNames = AbstractCopyUsageInfoDetector.getClassNamesWithInheritors(baseClass);
+        assertEquals(Set.of("BaseClass"), classNames);
+
+        editMethodBody(baseClass.findMethodsByName("testMethod", false)[0]);
+        assertSame("Edit inside method body should keep class hierarchy",
+                classNames, AbstractCopyUsageInfoDetector.getClassNamesWithInheritors(baseClass));
+
+        myFixture.addClass("public class ChildClass extends BaseClass {}");
+        assertEquals("New inheritor should be found", Set.of("BaseClass", "ChildClass"),
+                AbstractCopyUsageInfoDetector.getClassNamesWithInheritors(baseClass));
+    }
+
+    public void testFindCopyUsageInfoForInheritedField() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField baseField = createTestField("BaseEntity", "baseField");
+        myFixture.addClass("public class OrderEntity extends BaseEntity {}");
+        myFixture.configureByText("InheritReferenceClass.java", """
+                public class InheritReferenceClass {
+                    public void testMethod() {
+                        OrderEntity order = new OrderEntity();
+                        BeanUtils.copyProperties(order, new Object());
+                    }
+                }
+                """);
+
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(baseField,  null);
+        assertEquals("Should find copy of subclass", 1, actual.size());
+        assertEquals("Should be read by copy of subclass", ReferenceType.INDIRECT_READ, actual.get(0).getType());
+    }
+
+    public void testProcessCopyUsageInfoStopsWhenProcessorReturnsFalse() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(true);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig);
+        createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig);
+
+        List<CopyUsageInfo> actual = new ArrayList<>();
+        boolean completed = detector.processCopyUsageInfo(testField, null, usageInfo -> {
+            actual.add(usageInfo);
+            return false;
+        });
+        assertFalse("Search should be stopped", completed);
+        assertEquals("Should stop after first usage info", 1, actual.size());
+        assertFalse("Partial result should not be cached",
+                cache.getCachedResul(generateKeyForField(testField)).isPresent());
+    }
+
+    public void testFindCopyUsageInfoWithOverloadedCopyMethods() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        MethodConfig overloadMethodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("param1", "target", "source"), 2, 1, false, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig, overloadMethodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> expected = new ArrayList<>();
+        expected.add(createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig));
+        expected.add(createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig));
+        expected.add(createRealUsageInfos("OverloadReadReferenceClass", testField, ReferenceType.INDIRECT_READ, overloadMethodConfig));
+        expected.add(createRealUsageInfos("OverloadWriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, overloadMethodConfig));
+
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField,  null);
+        assertTrue("Should assign each call to config of its overload",  CollectionUtils.isEqualCollection(expected, actual));
+    }
+
+    public void testFindCopyUsageInfoWithParamTypes() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target"), 0, 1, false, false);
+        createCopyClasses(List.of(methodConfig));
+        // names differ from the declaration, types decide the match
+        MethodConfig typeMethodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("arg0", "arg1"), 0, 1, false, false);
+        typeMethodConfig.setParamTypes(List.of("java.lang.Object", "java.lang.Object"));
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(List.of(typeMethodConfig));
+
+        PsiField testField = createTestField("TestClass", "testField");
+        List<CopyUsageInfo> expected = new ArrayList<>();
+        expected.add(createRealUsageInfos("ReadReferenceClass", testField, ReferenceType.INDIRECT_READ, methodConfig));
+        expected.add(createRealUsageInfos("WriteReferenceClass", testField, ReferenceType.INDIRECT_WRITE, methodConfig));
+
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField,  null);
+        assertEquals("Should match copy method by parameter types", expected, actual);
+    }
+
     public void testProcessMatchedCallWithExcludeCondition() {
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(false);
@@ -144,6 +617,35 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         assertEmpty("Should return empty usage infos", actual);
     }
 
+    public void testProcessMatchedCallWithConstantExcludeArguments() {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setCacheEnable(false);
+        when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
+
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils","copyProperties", List.of("source", "target", "fields"), 0, 1, true, false);
+        List<MethodConfig> methodConfigList = List.of(methodConfig);
+        createCopyClasses(methodConfigList);
+        when(methodConfigSetting.getMethodConfigs()).thenReturn(methodConfigList);
+
+        PsiField testField = createTestField("TestClass", "testField");
+        myFixture.configureByText("ConstantReferenceClass.java", """
+                public class ConstantReferenceClass {
+                    static final String TEST_FIELD = "test" + "Field";
+                    static final String[] IGNORED = {TEST_FIELD};
+                    public void testMethod() {
+                        TestClass test = new TestClass();
+                        BeanUtils.copyProperties(test, null, IGNORED);
+                        BeanUtils.copyProperties(null, test, new String[]{ConstantReferenceClass.TEST_FIELD});
+                        BeanUtils.copyProperties(test, null, "other", TEST_FIELD);
+                    }
+                }
+                """);
+
+        List<CopyUsageInfo> actual = detector.findCopyUsageInfo(testField,  null);
+        assertEmpty("Field excluded by constants should not be found", actual);
+    }
+
     public void testProcessMatchedCallWithIncludeCondition() {
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(false);
@@ -172,6 +674,13 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
 
     /****************************private method****************************/
 
+    private void editMethodBody(PsiMethod method) {
+        PsiCodeBlock body = method.getBody();
+        assertNotNull("Method should have a body", body);
+        WriteCommandAction.runWriteCommandAction(getProject(), () -> body.add(
+                JavaPsiFacade.getElementFactory(getProject()).createStatementFromText("int i = 0;", body)));
+    }
+
     @NotNull
     private PsiField createTestField(String className, String fieldName) {
         return PsiTestUtil.createTestFieldWithSelfReference(myFixture, className, fieldName);
@@ -196,6 +705,13 @@ public class FiledCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixtureT
         return PsiTestUtil.createRealUsageInfos(myFixture, mockClassName, testField, referenceType, methodConfig, strings);
     }
 
+    private List<PsiMethodCallExpression> processMethodCalls(MethodConfig methodConfig, int parallelism) {
+        List<PsiMethodCallExpression> result = new ArrayList<>();
+        CopyMethodReferenceDetector.processMethodCalls(getProject(), List.of(methodConfig), GlobalSearchScope.allScope(getProject()),
+                parallelism, fraction -> {}, (config, callExpression) -> callExpression, new CommonProcessors.CollectProcessor<>(result));
+        return result;
+    }
+
     private void createCopyClasses(List<MethodConfig> methodConfigs) {
         PsiTestUtil.createCopyClasses(myFixture, methodConfigs);
     }
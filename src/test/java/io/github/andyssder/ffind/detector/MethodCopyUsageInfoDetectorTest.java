@@ -1,7 +1,6 @@
 package io.github.andyssder.ffind.detector;
 
 import com.intellij.openapi.application.Application;
-import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiReference;
@@ -37,7 +36,7 @@ public class MethodCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixture
         super.setUp();
 
         detector = new MethodCopyUsageInfoDetector();
-        cache = FindResultCache.getInstance();
+        cache = FindResultCache.getInstance(getProject());
 
         generalSetting = mock(GeneralSetting.class);
         methodConfigSetting = mock(MethodConfigSetting.class);
@@ -77,17 +76,20 @@ public class MethodCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixture
 
         PsiField anotherField = createTestField("AnotherTestClass", "anotherField");
         createSetterOrGetterMethodForField(field, "set");
-        List<CopyUsageInfo> anotherMethodUsages = createMockUsageInfos(anotherField);
-
-        String cacheKey = generateKeyForMethod(setterMethod);
-        cache.updateCacheResult(cacheKey, anotherMethodUsages, 5000L);
+        PsiReference mockReference = PsiTestUtil.getFieldReference(myFixture, "AnotherTestClass", anotherField.getName());
+        CopyUsageInfo readUsage = new CopyUsageInfo(mockReference, ReferenceType.INDIRECT_READ);
+        CopyUsageInfo writeUsage = new CopyUsageInfo(mockReference, ReferenceType.INDIRECT_WRITE);
 
         GeneralConfig generalConfig = new GeneralConfig();
         generalConfig.setCacheEnable(true);
         when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
 
+        // setter shares the result of its field
+        String cacheKey = generateKeyForMethod(setterMethod);
+        cache.updateCacheResult(cacheKey, List.of(readUsage, writeUsage));
+
         List<CopyUsageInfo> result = detector.findCopyUsageInfo(setterMethod, null);
-        assertEquals("Should return cached data", anotherMethodUsages, result);
+        assertEquals("Should return write slice of cached data", List.of(writeUsage), result);
 
         generalConfig.setCacheEnable(false);
         when(generalSetting.getGeneralConfig()).thenReturn(generalConfig);
@@ -250,16 +252,6 @@ public class MethodCopyUsageInfoDetectorTest extends LightJavaCodeInsightFixture
     }
 
 
-    @NotNull
-    private List<CopyUsageInfo> createMockUsageInfos(PsiField psiField) {
-        PsiClass containingClass = psiField.getContainingClass();
-        assertNotNull("Field should have a containing class", containingClass);
-        PsiReference mockReference = PsiTestUtil.getFieldReference(myFixture, containingClass.getQualifiedName(), psiField.getName());
-
-        return List.of(new CopyUsageInfo(mockReference, ReferenceType.INDIRECT_READ));
-    }
-
-
     @NotNull
     private CopyUsageInfo createRealUsageInfos(String mockClassName, PsiField testField, ReferenceType referenceType, MethodConfig methodConfig, String... strings) {
         return PsiTestUtil.createRealUsageInfos(myFixture, mockClassName, testField, referenceType, methodConfig, strings);
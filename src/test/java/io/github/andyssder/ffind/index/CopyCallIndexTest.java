@@ -0,0 +1,75 @@
+package io.github.andyssder.ffind.index;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+import com.intellij.util.indexing.FileBasedIndex;
+
+import java.util.List;
+import java.util.Map;
+
+public class CopyCallIndexTest extends LightJavaCodeInsightFixtureTestCase {
+
+    public void testIndexMethodCallsWithSourceAndTarget() {
+        PsiFile psiFile = myFixture.configureByText("CallerClass.java",
+                "public class CallerClass {\n" +
+                        "   public void testMethod(Object source, Object target) {\n" +
+                        "       BeanUtils.copyProperties(source, target);\n" +
+                        "       BeanUtils.copyProperties(source, target, \"id\");\n" +
+                        "       source.toString();\n" +
+                        "   }\n" +
+                        "}"
+        );
+
+        Map<String, List<CopyCallEntry>> fileData = FileBasedIndex.getInstance()
+                .getFileData(CopyCallIndex.NAME, psiFile.getVirtualFile(), getProject());
+        assertFalse("Should not index call without source and target", fileData.containsKey("toString"));
+
+        List<CopyCallEntry> entries = fileData.get("copyProperties");
+        assertNotNull("Should index method call", entries);
+        assertEquals("Should index all calls", 2, entries.size());
+        assertEquals("Should record argument count", 2, entries.get(0).getArgumentCount());
+        assertEquals("Should record argument count", 3, entries.get(1).getArgumentCount());
+
+        PsiElement nameElement = psiFile.findElementAt(entries.get(0).getOffset());
+        assertNotNull(nameElement);
+        assertEquals("Should record offset of method name", "copyProperties", nameElement.getText());
+    }
+
+    public void testIndexCallsOfAnyMethodName() {
+        PsiFile psiFile = myFixture.configureByText("AnyCallerClass.java",
+                "public class AnyCallerClass {\n" +
+                        "   public void testMethod(Object source, Object target) {\n" +
+                        "       Mapper.map(source, target);\n" +
+                        "       this.merge(source, target);\n" +
+                        "   }\n" +
+                        "}"
+        );
+
+        Map<String, List<CopyCallEntry>> fileData = FileBasedIndex.getInstance()
+                .getFileData(CopyCallIndex.NAME, psiFile.getVirtualFile(), getProject());
+        assertTrue("Should index call of any method name", fileData.containsKey("map"));
+        assertTrue("Should index qualified call by method name", fileData.containsKey("merge"));
+        assertFalse("Should not index qualifier", fileData.containsKey("Mapper"));
+    }
+
+    public void testGetFilesWithScope() {
+        PsiFile psiFile = myFixture.configureByText("ScopeCallerClass.java",
+                "public class ScopeCallerClass {\n" +
+                        "   public void testMethod(Object source, Object target) {\n" +
+                        "       BeanUtils.copyProperties(source, target);\n" +
+                        "   }\n" +
+                        "}"
+        );
+
+        List<VirtualFile> allFiles = CopyCallIndex.getFiles("copyProperties", GlobalSearchScope.allScope(getProject()));
+        assertTrue("Should find file with calls", allFiles.contains(psiFile.getVirtualFile()));
+        assertEquals("Should load calls of file", 1,
+                CopyCallIndex.getCallEntries("copyProperties", psiFile.getVirtualFile(), getProject()).size());
+
+        List<VirtualFile> emptyFiles = CopyCallIndex.getFiles("copyProperties", GlobalSearchScope.EMPTY_SCOPE);
+        assertEmpty("Should not find file out of scope", emptyFiles);
+    }
+}
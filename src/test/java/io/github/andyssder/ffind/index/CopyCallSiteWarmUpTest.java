@@ -0,0 +1,105 @@
+package io.github.andyssder.ffind.index;
+
+import io.github.andyssder.ffind.model.GeneralConfig;
+import io.github.andyssder.ffind.model.state.GeneralSetting;
+import io.github.andyssder.ffind.model.state.SettingsChangeListener;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.testFramework.ServiceContainerUtil;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+
+import static com.intellij.openapi.application.ApplicationManager.getApplication;
+import static org.mockito.Mockito.*;
+
+public class CopyCallSiteWarmUpTest extends LightJavaCodeInsightFixtureTestCase {
+
+    private CopyCallSiteWarmUp warmUp;
+    private GeneralSetting generalSetting;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        warmUp = CopyCallSiteWarmUp.getInstance(getProject());
+        generalSetting = mock(GeneralSetting.class);
+        ServiceContainerUtil.replaceService(getApplication(), GeneralSetting.class, generalSetting, getTestRootDisposable());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        try {
+            // the light project is reused, don't leave a warm up behind
+            publishGeneralConfigChange(createGeneralConfig(true), createGeneralConfig(false));
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testScheduleWhenWarmUpDisabled() {
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(false));
+
+        warmUp.schedule();
+
+        assertNull("Should not schedule warm up when disabled", warmUp.getIndicator());
+    }
+
+    public void testScheduleWhenWarmUpEnabled() {
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(true));
+
+        warmUp.schedule();
+        ProgressIndicator indicator = warmUp.getIndicator();
+        assertNotNull("Should schedule warm up when enabled", indicator);
+        assertFalse(indicator.isCanceled());
+
+        warmUp.schedule();
+        assertTrue("Should cancel warm up scheduled before", indicator.isCanceled());
+        assertNotSame(indicator, warmUp.getIndicator());
+    }
+
+    public void testCancelInDumbModeAndScheduleAfter() {
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(true));
+        warmUp.schedule();
+        ProgressIndicator indicator = warmUp.getIndicator();
+
+        getProject().getMessageBus().syncPublisher(DumbService.DUMB_MODE).enterDumbMode();
+        assertTrue("Should cancel warm up when indexing starts", indicator.isCanceled());
+        assertNull(warmUp.getIndicator());
+
+        getProject().getMessageBus().syncPublisher(DumbService.DUMB_MODE).exitDumbMode();
+        ProgressIndicator newIndicator = warmUp.getIndicator();
+        assertNotNull("Should schedule warm up when indexing ends", newIndicator);
+        assertFalse(newIndicator.isCanceled());
+    }
+
+    public void testGeneralConfigChange() {
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(false));
+        publishGeneralConfigChange(createGeneralConfig(false), createGeneralConfig(false));
+        assertNull("Should not schedule warm up when still disabled", warmUp.getIndicator());
+
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(true));
+        publishGeneralConfigChange(createGeneralConfig(false), createGeneralConfig(true));
+        ProgressIndicator indicator = warmUp.getIndicator();
+        assertNotNull("Should schedule warm up when enabled", indicator);
+
+        GeneralConfig otherConfig = createGeneralConfig(true);
+        otherConfig.setCacheEnable(true);
+        publishGeneralConfigChange(createGeneralConfig(true), otherConfig);
+        assertSame("Should keep warm up when other options change", indicator, warmUp.getIndicator());
+        assertFalse(indicator.isCanceled());
+
+        when(generalSetting.getGeneralConfig()).thenReturn(createGeneralConfig(false));
+        publishGeneralConfigChange(otherConfig, createGeneralConfig(false));
+        assertTrue("Should cancel warm up when disabled", indicator.isCanceled());
+        assertNull(warmUp.getIndicator());
+    }
+
+    private static GeneralConfig createGeneralConfig(boolean warmUpEnable) {
+        GeneralConfig generalConfig = new GeneralConfig();
+        generalConfig.setWarmUpEnable(warmUpEnable);
+        return generalConfig;
+    }
+
+    private static void publishGeneralConfigChange(GeneralConfig oldConfig, GeneralConfig newConfig) {
+        getApplication().getMessageBus().syncPublisher(SettingsChangeListener.TOPIC).generalConfigChanged(oldConfig, newConfig);
+    }
+}
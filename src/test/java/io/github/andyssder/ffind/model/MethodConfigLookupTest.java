@@ -0,0 +1,52 @@
+package io.github.andyssder.ffind.model;
+
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+
+import java.util.List;
+
+public class MethodConfigLookupTest extends LightJavaCodeInsightFixtureTestCase {
+
+    private static final MethodConfig COPY_CONFIG = new MethodConfig(
+            "BeanUtils", "copyProperties", List.of("source", "target"), 0, 1, false, false);
+    private static final MethodConfig COPY_IGNORE_CONFIG = new MethodConfig(
+            "BeanUtils", "copyProperties", List.of("source", "target", "ignoreProperties"), 0, 1, true, false);
+    private static final MethodConfig OTHER_CLASS_CONFIG = new MethodConfig(
+            "BeanUtil", "copyProperties", List.of("source", "target"), 0, 1, false, false);
+    private static final MethodConfig MAP_CONFIG = new MethodConfig(
+            "Mapper", "map", List.of("source", "target"), 0, 1, false, false);
+
+    public void testGroupByClassAndMethodInSettingOrder() {
+        List<List<MethodConfig>> groups = MethodConfigLookup.of(
+                List.of(COPY_CONFIG, MAP_CONFIG, OTHER_CLASS_CONFIG, COPY_IGNORE_CONFIG)).getGroups();
+
+        assertEquals(List.of(
+                List.of(COPY_CONFIG, COPY_IGNORE_CONFIG),
+                List.of(MAP_CONFIG),
+                List.of(OTHER_CLASS_CONFIG)), groups);
+    }
+
+    public void testReuseLookupOnlyForSameList() {
+        List<MethodConfig> methodConfigs = List.of(COPY_CONFIG, MAP_CONFIG);
+        MethodConfigLookup lookup = MethodConfigLookup.of(methodConfigs);
+
+        assertSame("Lookup of the same list should be reused", lookup, MethodConfigLookup.of(methodConfigs));
+
+        List<MethodConfig> otherConfigs = List.of(MAP_CONFIG);
+        MethodConfigLookup otherLookup = MethodConfigLookup.of(otherConfigs);
+        assertNotSame("Lookup of another list should be built again", lookup, otherLookup);
+        assertEquals(List.of(List.of(MAP_CONFIG)), otherLookup.getGroups());
+    }
+
+    public void testGroupByMethodKeepsLastLookup() {
+        List<MethodConfig> methodConfigs = List.of(COPY_CONFIG, COPY_IGNORE_CONFIG);
+        MethodConfigLookup lookup = MethodConfigLookup.of(methodConfigs);
+
+        assertEquals(List.of(List.of(MAP_CONFIG)), MethodConfigLookup.groupByMethod(List.of(MAP_CONFIG)));
+        assertSame(lookup, MethodConfigLookup.of(methodConfigs));
+    }
+
+    public void testGroupsCanNotBeChanged() {
+        List<MethodConfig> group = MethodConfigLookup.of(List.of(COPY_CONFIG)).getGroups().get(0);
+        assertThrows(UnsupportedOperationException.class, () -> group.add(COPY_IGNORE_CONFIG));
+    }
+}
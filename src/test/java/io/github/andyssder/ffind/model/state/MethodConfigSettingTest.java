@@ -0,0 +1,75 @@
+package io.github.andyssder.ffind.model.state;
+
+import io.github.andyssder.ffind.model.MethodConfig;
+import io.github.andyssder.ffind.ui.setting.MethodConfigTableModel;
+import com.intellij.testFramework.fixtures.LightJavaCodeInsightFixtureTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.intellij.openapi.application.ApplicationManager.getApplication;
+
+public class MethodConfigSettingTest extends LightJavaCodeInsightFixtureTestCase {
+
+    private MethodConfigSetting setting;
+    private final List<List<MethodConfig>> removedConfigs = new ArrayList<>();
+    private final List<List<MethodConfig>> addedConfigs = new ArrayList<>();
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+
+        setting = new MethodConfigSetting();
+        getApplication().getMessageBus().connect(getTestRootDisposable()).subscribe(SettingsChangeListener.TOPIC, new SettingsChangeListener() {
+            @Override
+            public void methodConfigsChanged(List<MethodConfig> removed, List<MethodConfig> added) {
+                removedConfigs.add(removed);
+                addedConfigs.add(added);
+            }
+        });
+    }
+
+    public void testEditInTableIsPublishedAsRemovedAndAdded() {
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils", "copyProperties", List.of("source", "target"), 0, 1, false, false);
+        setting.setMethodConfigs(List.of(methodConfig));
+        List<MethodConfig> oldConfigs = setting.getMethodConfigs();
+        MethodConfig oldConfig = oldConfigs.get(0);
+
+        MethodConfigTableModel tableModel = new MethodConfigTableModel();
+        tableModel.setMethodConfigs(oldConfigs);
+        tableModel.setValueAt("1", 0, 3);
+        tableModel.setValueAt("0", 0, 4);
+
+        assertFalse("Edit should be seen as modification", tableModel.getMethodConfigs().equals(setting.getMethodConfigs()));
+        assertEquals("Config in use should not be changed by edit", 0, oldConfig.getSourceParamIndex());
+        assertEquals(1, oldConfig.getTargetParamIndex());
+
+        removedConfigs.clear();
+        addedConfigs.clear();
+        setting.setMethodConfigs(tableModel.getMethodConfigs());
+
+        MethodConfig editedConfig = new MethodConfig(
+                "BeanUtils", "copyProperties", List.of("source", "target"), 1, 0, false, false);
+        assertEquals(List.of(List.of(oldConfig)), removedConfigs);
+        assertEquals(List.of(List.of(editedConfig)), addedConfigs);
+        assertEquals(List.of(editedConfig), setting.getMethodConfigs());
+    }
+
+    public void testConfigsInUseAreNotChangedByCallerObjects() {
+        MethodConfig methodConfig = new MethodConfig(
+                "BeanUtils", "copyProperties", new ArrayList<>(List.of("source", "target")), 0, 1, false, false);
+        setting.setMethodConfigs(List.of(methodConfig));
+        setting.getMethodConfigs();
+
+        removedConfigs.clear();
+        addedConfigs.clear();
+        methodConfig.setSourceParamIndex(1);
+        methodConfig.getParamNames().add("editable");
+
+        MethodConfig usedConfig = setting.getMethodConfigs().get(0);
+        assertEquals(0, usedConfig.getSourceParamIndex());
+        assertEquals(List.of("source", "target"), usedConfig.getParamNames());
+        assertEmpty("Nothing should be published without setting configs", addedConfigs);
+    }
+}